@@ -0,0 +1,63 @@
+package cz.creeper.customitemlibrary.benchmark;
+
+import cz.creeper.customitemlibrary.managers.MiningManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.data.property.item.EfficiencyProperty;
+import org.spongepowered.api.item.inventory.ItemStack;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the memoised {@link MiningManager#computeDuration(ItemStack, int, int, boolean, double)}
+ * with computing the duration from the item properties on every call, as it was done before the memoisation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BreakDurationBenchmark {
+    private static final double HARDNESS = 3;
+    private static final int HASTE_AMPLIFIER = 1;
+    private static final int FATIGUE_AMPLIFIER = -1;
+    private MiningManager miningManager;
+    private ItemStack itemInHand;
+
+    @Setup
+    public void setup() {
+        miningManager = new MiningManager();
+        itemInHand = SpongeStubs.itemStack(SpongeStubs.itemType("minecraft:diamond_pickaxe", 1562), 8);
+    }
+
+    @Benchmark
+    public double memoised() {
+        return miningManager.computeDuration(itemInHand, HASTE_AMPLIFIER, FATIGUE_AMPLIFIER, true, HARDNESS);
+    }
+
+    @Benchmark
+    public double direct() {
+        double totalEfficiency = itemInHand.getProperty(EfficiencyProperty.class)
+                .map(EfficiencyProperty::getValue)
+                .orElse(1.0) + MiningManager.getEfficiencyBonus(itemInHand);
+        double toolFactor = 1.5 / totalEfficiency;
+        double effectFactor = 1;
+
+        if(FATIGUE_AMPLIFIER >= 0)
+            effectFactor *= 1 - Math.pow(0.3, FATIGUE_AMPLIFIER);
+
+        if(HASTE_AMPLIFIER >= 0)
+            effectFactor *= 1.2 * HASTE_AMPLIFIER;
+
+        return HARDNESS * toolFactor * effectFactor;
+    }
+}
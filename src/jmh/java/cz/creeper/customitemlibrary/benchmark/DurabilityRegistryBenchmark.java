@@ -0,0 +1,54 @@
+package cz.creeper.customitemlibrary.benchmark;
+
+import cz.creeper.customitemlibrary.feature.DurabilityRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.item.ItemType;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Registers 1,500 models on a diamond shovel (1,561 uses) into an empty {@link DurabilityRegistry}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DurabilityRegistryBenchmark {
+    private static final int MODEL_COUNT = 1_500;
+    private ItemType diamondShovel;
+    private PluginContainer pluginContainer;
+    private List<String> models;
+
+    @Setup
+    public void setup() {
+        diamondShovel = SpongeStubs.itemType("minecraft:diamond_shovel", 1561);
+        pluginContainer = SpongeStubs.pluginContainer("benchmark");
+        models = IntStream.range(0, MODEL_COUNT)
+                .mapToObj(index -> "model_" + index)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public DurabilityRegistry registerModels() {
+        DurabilityRegistry registry = new DurabilityRegistry();
+
+        registry.register(diamondShovel, pluginContainer, models, "tools");
+
+        return registry;
+    }
+}
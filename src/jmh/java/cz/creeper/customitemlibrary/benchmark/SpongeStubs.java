@@ -0,0 +1,90 @@
+package cz.creeper.customitemlibrary.benchmark;
+
+import org.spongepowered.api.data.property.item.EfficiencyProperty;
+import org.spongepowered.api.data.property.item.UseLimitProperty;
+import org.spongepowered.api.item.ItemType;
+import org.spongepowered.api.item.inventory.ItemStack;
+import org.spongepowered.api.item.inventory.ItemStackSnapshot;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+/**
+ * Minimal stand-ins for the Sponge types the benchmarked code touches, as there is no server in a benchmark.
+ * Objects compare by identity, any method not listed throws {@link UnsupportedOperationException}.
+ */
+final class SpongeStubs {
+    private SpongeStubs() {}
+
+    static PluginContainer pluginContainer(String id) {
+        return stub(PluginContainer.class, id, (proxy, method, args) -> {
+            if(method.getName().equals("getId"))
+                return id;
+
+            throw new UnsupportedOperationException(method.toString());
+        });
+    }
+
+    /**
+     * @param maxUses The {@link UseLimitProperty} of the item type
+     */
+    static ItemType itemType(String id, int maxUses) {
+        ItemStackSnapshot template = stub(ItemStackSnapshot.class, id, (proxy, method, args) -> {
+            if(method.getName().equals("getProperty") && args[0] == UseLimitProperty.class)
+                return Optional.of(new UseLimitProperty(maxUses));
+
+            throw new UnsupportedOperationException(method.toString());
+        });
+
+        return stub(ItemType.class, id, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "getId":
+                case "getName":
+                    return id;
+                case "getTemplate":
+                    return template;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    /**
+     * @return An item stack without enchantments, with the specified {@link EfficiencyProperty}
+     */
+    static ItemStack itemStack(ItemType itemType, double efficiency) {
+        return stub(ItemStack.class, itemType.getId(), (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "getItem":
+                    return itemType;
+                case "getProperty":
+                    return args[0] == EfficiencyProperty.class ? Optional.of(new EfficiencyProperty(efficiency)) : Optional.empty();
+                case "get":
+                    return Optional.empty();
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type, String name, InvocationHandler handler) {
+        Object stub = Proxy.newProxyInstance(SpongeStubs.class.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if(method.getDeclaringClass() == Object.class) {
+                switch(method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + "(" + name + ")";
+                }
+            }
+
+            return handler.invoke(proxy, method, args);
+        });
+
+        return type.cast(stub);
+    }
+}
@@ -15,13 +15,20 @@ import cz.creeper.customitemlibrary.data.mutable.CustomFeatureData;
 import cz.creeper.customitemlibrary.data.mutable.CustomInventoriesData;
 import cz.creeper.customitemlibrary.data.mutable.CustomInventoryData;
 import cz.creeper.customitemlibrary.data.mutable.RepresentedCustomItemSnapshotData;
+import cz.creeper.customitemlibrary.feature.block.ArmorStandPool;
+import cz.creeper.customitemlibrary.feature.block.ChunkRegistrationQueue;
 import cz.creeper.customitemlibrary.feature.block.CustomBlock;
 import cz.creeper.customitemlibrary.feature.block.CustomBlockDefinition;
+import cz.creeper.customitemlibrary.feature.block.CustomBlockUpdateScheduler;
+import cz.creeper.customitemlibrary.feature.block.storage.BlockIndexVerification;
+import cz.creeper.customitemlibrary.feature.block.storage.PersistentBlockIndex;
 import cz.creeper.customitemlibrary.feature.item.CustomItem;
 import cz.creeper.customitemlibrary.feature.item.CustomItemDefinition;
+import cz.creeper.customitemlibrary.managers.ItemCategoryManager;
 import cz.creeper.customitemlibrary.managers.MiningManager;
 import cz.creeper.customitemlibrary.util.Block;
 import cz.creeper.customitemlibrary.util.Identifier;
+import cz.creeper.customitemlibrary.util.NegativeLookupCache;
 import cz.creeper.customitemlibrary.util.Util;
 import lombok.Getter;
 import lombok.val;
@@ -88,6 +95,7 @@ public class CustomItemLibrary {
     @Inject @DefaultConfig(sharedRoot = false)
     private Path configPath;
     private MiningManager miningManager;
+    private ItemCategoryManager itemCategoryManager;
     private CustomItemServiceImpl service;
 
     @Listener
@@ -127,6 +135,8 @@ public class CustomItemLibrary {
         service.saveRegistry();
         logger.info("CustomItemLibrary saved.");
 
+        // Items of other mods are registered by now
+        itemCategoryManager = new ItemCategoryManager().load();
         service.prepare();
     }
 
@@ -136,7 +146,7 @@ public class CustomItemLibrary {
     }
 
     private void setupManagers() {
-        miningManager = new MiningManager().start();
+        miningManager = new MiningManager().load().start();
     }
 
     private void setupService() {
@@ -277,12 +287,101 @@ public class CustomItemLibrary {
                 })
                 .build();
 
+        CommandSpec stats = CommandSpec.builder()
+                .description(Text.of("Shows the amount of tracked custom blocks."))
+                .permission("customitemlibrary.command.customitemlibrary.stats")
+                .executor((CommandSource src, CommandContext args) -> {
+                    src.sendMessage(Text.of(TextColors.GRAY, "Tracked custom blocks: " + service.getTrackedBlockCount()));
+                    src.sendMessage(Text.of(TextColors.GRAY, "Tracked chunks: " + service.getTrackedChunkCount()));
+                    src.sendMessage(Text.of(TextColors.GRAY, "Cached armor stand lookups: " + service.getCachedArmorStandLookupCount()));
+
+                    CustomBlockUpdateScheduler updateScheduler = service.getUpdateScheduler();
+
+                    src.sendMessage(Text.of(TextColors.GRAY, "Scheduled custom block updates: " + updateScheduler.size()
+                            + " (last tick: " + updateScheduler.getLastTickUpdates() + " updates in "
+                            + updateScheduler.getLastTickNanos() / 1000 + "us, late in last sweep: "
+                            + updateScheduler.getLastSweepLateUpdates() + ", by up to "
+                            + updateScheduler.getLastSweepMaxLatenessTicks() + " ticks)"));
+
+                    ChunkRegistrationQueue chunkRegistrationQueue = service.getChunkRegistrationQueue();
+
+                    src.sendMessage(Text.of(TextColors.GRAY, "Chunks waiting for registration: " + chunkRegistrationQueue.getSize()
+                            + " (last tick: " + chunkRegistrationQueue.getLastTickRegistrations() + " registered in "
+                            + chunkRegistrationQueue.getLastTickNanos() / 1000 + "us, waited up to "
+                            + chunkRegistrationQueue.getLastTickMaxLatencyNanos() / 1_000_000 + "ms, on demand: "
+                            + chunkRegistrationQueue.getOnDemandRegistrations() + ")"));
+
+                    NegativeLookupCache negativeLookupCache = service.getNegativeLookupCache();
+
+                    src.sendMessage(Text.of(TextColors.GRAY, "Cached non-custom blocks: " + negativeLookupCache.size()
+                            + "/" + negativeLookupCache.getCapacity()
+                            + " (hits: " + negativeLookupCache.getHits()
+                            + ", misses: " + negativeLookupCache.getMisses()
+                            + ", evictions: " + negativeLookupCache.getEvictions() + ")"));
+
+                    ArmorStandPool armorStandPool = service.getArmorStandPool();
+
+                    src.sendMessage(Text.of(TextColors.GRAY, "Parked armor stands: " + armorStandPool.size()
+                            + " (created: " + armorStandPool.getCreated()
+                            + ", reused: " + armorStandPool.getReused()
+                            + ", discarded: " + armorStandPool.getDiscarded()
+                            + ", reclaimed: " + armorStandPool.getReclaimed() + ")"));
+
+                    PersistentBlockIndex persistentBlockIndex = service.getPersistentBlockIndex();
+
+                    src.sendMessage(Text.of(TextColors.GRAY, "Block index chunk reads: "
+                            + persistentBlockIndex.getIndexedChunkReads() + " indexed, "
+                            + persistentBlockIndex.getUnindexedChunkReads() + " scanned"
+                            + " (regions written: " + persistentBlockIndex.getWrittenRegions() + ")"));
+                    src.sendMessage(Text.of(TextColors.GRAY, "Active miners: " + miningManager.getActiveMiners()
+                            + String.format(" (mining events per tick: %.2f, posted: %d, dispatched directly: %d)",
+                            miningManager.getAverageEventsPerTick(), miningManager.getPostedEvents(),
+                            miningManager.getDirectlyDispatchedEvents())));
+                    return CommandResult.success();
+                })
+                .build();
+
+        CommandSpec blockIndexVerify = CommandSpec.builder()
+                .description(Text.of("Compares the custom block index of loaded chunks with their armor stands."))
+                .permission("customitemlibrary.command.customitemlibrary.blockindex.verify")
+                .executor((CommandSource src, CommandContext args) -> {
+                    BlockIndexVerification verification = service.verifyBlockIndex(false);
+
+                    src.sendMessage(Text.of(verification.getMismatchedChunks() > 0 ? TextColors.RED : TextColors.GREEN,
+                            verification.getMismatchedChunks() + " out of " + verification.getCheckedChunks()
+                                    + " loaded chunks do not match the custom block index."));
+                    return CommandResult.success();
+                })
+                .build();
+
+        CommandSpec blockIndexRebuild = CommandSpec.builder()
+                .description(Text.of("Rewrites the custom block index of loaded chunks from their armor stands and tracks the blocks found."))
+                .permission("customitemlibrary.command.customitemlibrary.blockindex.rebuild")
+                .executor((CommandSource src, CommandContext args) -> {
+                    BlockIndexVerification verification = service.verifyBlockIndex(true);
+
+                    src.sendMessage(Text.of(TextColors.GREEN, "Rebuilt the custom block index of "
+                            + verification.getMismatchedChunks() + " out of " + verification.getCheckedChunks()
+                            + " loaded chunks."));
+                    return CommandResult.success();
+                })
+                .build();
+
+        CommandSpec blockIndex = CommandSpec.builder()
+                .description(Text.of("Custom block index commands."))
+                .permission("customitemlibrary.command.customitemlibrary.blockindex")
+                .child(blockIndexVerify, "verify", "v")
+                .child(blockIndexRebuild, "rebuild", "r")
+                .build();
+
         CommandSpec customItemLibrary = CommandSpec.builder()
                 .description(Text.of("CustomItemLibrary commands."))
                 .permission("customitemlibrary.command.customitemlibrary")
                 .child(give, "give", "g")
                 .child(setBlock, "setBlock", "sb", "b")
                 .child(resourcepack, "resourcepack", "rp", "r")
+                .child(stats, "stats", "s")
+                .child(blockIndex, "blockindex", "bi")
                 .build();
 
         manager.register(this, customItemLibrary, "customitemlibrary", "cil");
@@ -2,7 +2,9 @@ package cz.creeper.customitemlibrary;
 
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import cz.creeper.customitemlibrary.data.CustomItemLibraryKeys;
 import cz.creeper.customitemlibrary.data.mutable.CustomFeatureData;
 import cz.creeper.customitemlibrary.feature.CustomFeature;
@@ -10,9 +12,14 @@ import cz.creeper.customitemlibrary.feature.CustomFeatureDefinition;
 import cz.creeper.customitemlibrary.feature.CustomFeatureRegistry;
 import cz.creeper.customitemlibrary.feature.CustomFeatureRegistryMap;
 import cz.creeper.customitemlibrary.feature.DurabilityRegistry;
+import cz.creeper.customitemlibrary.feature.block.ArmorStandPool;
+import cz.creeper.customitemlibrary.feature.block.ChunkRegistrationQueue;
 import cz.creeper.customitemlibrary.feature.block.CustomBlock;
 import cz.creeper.customitemlibrary.feature.block.CustomBlockDefinition;
+import cz.creeper.customitemlibrary.feature.block.CustomBlockUpdateScheduler;
 import cz.creeper.customitemlibrary.feature.block.simple.SimpleCustomBlock;
+import cz.creeper.customitemlibrary.feature.block.storage.BlockIndexVerification;
+import cz.creeper.customitemlibrary.feature.block.storage.PersistentBlockIndex;
 import cz.creeper.customitemlibrary.feature.block.simple
         .SimpleCustomBlockDefinition;
 import cz.creeper.customitemlibrary.feature.block.simple
@@ -32,6 +39,9 @@ import cz.creeper.customitemlibrary.feature.item.material
 import cz.creeper.customitemlibrary.feature.item.tool.CustomToolDefinition;
 import cz.creeper.customitemlibrary.feature.item.tool.CustomToolRegistry;
 import cz.creeper.customitemlibrary.util.Block;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import cz.creeper.customitemlibrary.util.NegativeLookupCache;
 import lombok.ToString;
 import lombok.val;
 import org.spongepowered.api.Sponge;
@@ -43,24 +53,31 @@ import org.spongepowered.api.entity.living.ArmorStand;
 import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.block.ChangeBlockEvent;
+import org.spongepowered.api.event.entity.DestructEntityEvent;
+import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
+import org.spongepowered.api.event.world.SaveWorldEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
 import org.spongepowered.api.event.world.chunk.LoadChunkEvent;
 import org.spongepowered.api.event.world.chunk.PopulateChunkEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.util.AABB;
-import org.spongepowered.api.util.Identifiable;
 import org.spongepowered.api.world.Chunk;
+import org.spongepowered.api.world.World;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -68,14 +85,25 @@ import java.util.stream.StreamSupport;
 public class CustomItemServiceImpl implements CustomItemService {
     public static final String DIRECTORY_NAME_REGISTRIES = "registries";
     public static final String DIRECTORY_NAME_RESOURCEPACK = "resourcepack";
+    public static final String DIRECTORY_NAME_BLOCK_INDEX = "blockindex";
     public static final String FILE_NAME_PACK = "pack.mcmeta";
+    public static final int NEGATIVE_LOOKUP_CACHE_CAPACITY = 1 << 16;
+    public static final int BLOCK_INDEX_FLUSH_INTERVAL_SECONDS = 30;
+    public static final int ARMOR_STAND_POOL_RECLAIM_INTERVAL_SECONDS = 5;
     private final CustomFeatureRegistryMap registryMap = new CustomFeatureRegistryMap();
     private final Map<String, Map<String, CustomItemDefinition<? extends CustomItem>>> pluginIdsToTypeIdsToItemDefinitions = Maps.newHashMap();
     private final Map<String, Map<String, CustomBlockDefinition<? extends CustomBlock>>> pluginIdsToTypeIdsToBlockDefinitions = Maps.newHashMap();
     private final Map<String, Map<String, CustomInventoryDefinition<? extends CustomInventory>>> pluginIdsToTypeIdsToInventoryDefinitions = Maps.newHashMap();
-    private final Map<Block, Optional<UUID>> blockToArmorStand = Maps.newHashMap();
-    private final Map<Block, CustomBlock<? extends CustomBlockDefinition>> loadedBlocks = Maps.newHashMap();
+    private final BlockIndex<UUID> blockToArmorStand = new BlockIndex<>();
+    private final NegativeLookupCache blocksWithoutArmorStand = new NegativeLookupCache(NEGATIVE_LOOKUP_CACHE_CAPACITY);
+    private final BlockIndex<CustomBlock<? extends CustomBlockDefinition>> loadedBlocks = new BlockIndex<>();
+    private final CustomBlockUpdateScheduler updateScheduler = new CustomBlockUpdateScheduler(this::unregisterInaccessible);
+    private final ChunkRegistrationQueue chunkRegistrationQueue = new ChunkRegistrationQueue(this::registerBlocksInChunk);
+    private final PersistentBlockIndex persistentBlockIndex = new PersistentBlockIndex(getDirectoryBlockIndex());
+    private final ArmorStandPool armorStandPool = new ArmorStandPool(this::onArmorStandReleased);
     private Task customBlockUpdateTask;
+    private Task blockIndexFlushTask;
+    private Task armorStandPoolReclaimTask;
 
     public CustomItemServiceImpl() {
         registryMap.put(CustomToolDefinition.class, CustomToolRegistry.getInstance());
@@ -147,6 +175,8 @@ public class CustomItemServiceImpl implements CustomItemService {
     public void prepare() {
         registerLoadedBlocks();
         submitUpdateTask();
+        submitBlockIndexFlushTask();
+        submitArmorStandPoolReclaimTask();
         // It doesn't work with a method reference
         //noinspection Convert2MethodRef
         registryMap.values().forEach(registry -> registry.prepare());
@@ -218,14 +248,29 @@ public class CustomItemServiceImpl implements CustomItemService {
     }
 
     public void setArmorStandAt(Block block, ArmorStand armorStand) {
-        blockToArmorStand.put(block, Optional.of(armorStand.getUniqueId()));
+        setArmorStandAt(block, armorStand.getUniqueId());
+    }
+
+    private void setArmorStandAt(Block block, UUID armorStandId) {
+        blockToArmorStand.put(block, armorStandId);
+        invalidateNegativeLookups(block);
+    }
+
+    /**
+     * Forgets all blocks known not to be custom in the chunk of the provided block.
+     */
+    private void invalidateNegativeLookups(Block block) {
+        Vector3i position = block.getPosition();
+
+        blocksWithoutArmorStand.invalidateChunk(block.getWorldId(),
+                position.getX() >> BlockIndex.CHUNK_SHIFT, position.getZ() >> BlockIndex.CHUNK_SHIFT);
     }
 
     public Optional<? extends CustomBlock<? extends CustomBlockDefinition>> getBlock(ArmorStand armorStand) {
         return getBlockDefinition(armorStand).flatMap(definition -> {
-            Block block = Block.of(armorStand.getLocation());
+            Block block = Block.ofUnchecked(armorStand.getLocation());
 
-            blockToArmorStand.put(block, Optional.of(armorStand.getUniqueId()));
+            setArmorStandAt(block, armorStand.getUniqueId());
 
             return definition.wrapIfPossible(block);
         });
@@ -237,8 +282,34 @@ public class CustomItemServiceImpl implements CustomItemService {
     }
 
     public Optional<ArmorStand> getArmorStandAt(Block block) {
-        return blockToArmorStand.computeIfAbsent(block, k -> findArmorStandAt(k).map(Identifiable::getUniqueId))
-                .flatMap(id -> block.getWorld().flatMap(extent -> extent.getEntity(id)).map(ArmorStand.class::cast));
+        ensureChunkRegistered(block);
+
+        CustomBlock<? extends CustomBlockDefinition> loadedBlock = loadedBlocks.get(block);
+
+        // Tracked blocks hold on to their armor stand until it is destroyed or unloaded
+        if(loadedBlock != null) {
+            Optional<ArmorStand> armorStand = loadedBlock.getLoadedArmorStand();
+
+            if(armorStand.isPresent())
+                return armorStand;
+        }
+
+        UUID armorStandId = blockToArmorStand.get(block);
+
+        if(armorStandId != null)
+            return block.getWorld().flatMap(extent -> extent.getEntity(armorStandId)).map(ArmorStand.class::cast);
+
+        if(blocksWithoutArmorStand.contains(block))
+            return Optional.empty();
+
+        Optional<ArmorStand> armorStand = findArmorStandAt(block);
+
+        if(armorStand.isPresent())
+            blockToArmorStand.put(block, armorStand.get().getUniqueId());
+        else
+            blocksWithoutArmorStand.add(block);
+
+        return armorStand;
     }
 
     public Optional<ArmorStand> findArmorStandAt(Block block) {
@@ -275,7 +346,10 @@ public class CustomItemServiceImpl implements CustomItemService {
     }
 
     public boolean removeArmorStandsAt(Block block) {
-        findArmorStandsAt(block).forEach(Entity::remove);
+        ensureChunkRegistered(block);
+
+        findArmorStandsAt(block).forEach(armorStandPool::release);
+        removeFromPersistentIndex(block);
         return blockToArmorStand.remove(block) != null;
     }
 
@@ -339,46 +413,413 @@ public class CustomItemServiceImpl implements CustomItemService {
 
     @Listener(order = Order.BEFORE_POST)
     public void onChangeBlockBreak(ChangeBlockEvent event) {
-        event.getTransactions().stream()
-                .filter(Transaction::isValid)
-                .forEach(blockSnapshotTransaction -> {
-            BlockSnapshot original = blockSnapshotTransaction.getOriginal();
-            original.getLocation().map(Block::of).ifPresent(this::removeArmorStandsAt);
-        });
+        World world = event.getTargetWorld();
+        UUID worldId = world.getUniqueId();
+        LongObjectHashMap<List<Block>> chunkToBlocks = null;
+
+        for(Transaction<BlockSnapshot> transaction : event.getTransactions()) {
+            if(!transaction.isValid())
+                continue;
+
+            BlockSnapshot original = transaction.getOriginal();
+
+            // Most changes (crops, leaves, fluids, explosions) do not involve custom blocks, skip them cheaply
+            if(original.getState().getType() != CustomBlock.BLOCK_TYPE_CUSTOM)
+                continue;
+
+            Vector3i position = original.getPosition();
+            int chunkX = position.getX() >> BlockIndex.CHUNK_SHIFT;
+            int chunkZ = position.getZ() >> BlockIndex.CHUNK_SHIFT;
+
+            if(!isChunkTracked(worldId, chunkX, chunkZ))
+                continue;
+
+            if(chunkToBlocks == null)
+                chunkToBlocks = new LongObjectHashMap<>();
+
+            long chunkKey = BlockIndex.chunkKey(chunkX, chunkZ);
+            List<Block> blocks = chunkToBlocks.get(chunkKey);
+
+            if(blocks == null) {
+                blocks = Lists.newArrayList();
+                chunkToBlocks.put(chunkKey, blocks);
+            }
+
+            blocks.add(Block.ofUnchecked(world, position));
+        }
+
+        // A single entity query per chunk, rather than one per changed block
+        if(chunkToBlocks != null)
+            chunkToBlocks.forEach((chunkKey, blocks) -> removeArmorStandsIn(world,
+                    BlockIndex.chunkKeyX(chunkKey), BlockIndex.chunkKeyZ(chunkKey), blocks));
+    }
+
+    /**
+     * @return Whether any custom block is tracked within the chunk
+     */
+    public boolean isChunkTracked(UUID worldId, int chunkX, int chunkZ) {
+        chunkRegistrationQueue.registerNow(worldId, chunkX, chunkZ);
+
+        return loadedBlocks.containsChunk(worldId, chunkX, chunkZ)
+                || blockToArmorStand.containsChunk(worldId, chunkX, chunkZ);
+    }
+
+    /**
+     * Untracks the blocks and removes their armor stands.
+     * All of the blocks must be within the specified chunk.
+     */
+    public void removeArmorStandsIn(World world, int chunkX, int chunkZ, List<Block> blocks) {
+        chunkRegistrationQueue.registerNow(world.getUniqueId(), chunkX, chunkZ);
+
+        Vector3i min = null;
+        Vector3i max = null;
+        Set<Vector3i> positions = Sets.newHashSetWithExpectedSize(blocks.size());
+
+        for(Block block : blocks) {
+            Vector3i position = block.getPosition();
+
+            positions.add(position);
+
+            min = min == null ? position : min.min(position);
+            max = max == null ? position : max.max(position);
+        }
+
+        Optional<Chunk> chunk = world.getChunk(chunkX, 0, chunkZ);
+
+        // Released while the blocks are still tracked, so the pool can notify them
+        if(chunk.isPresent() && min != null) {
+            AABB aabb = new AABB(min, max.add(Vector3i.ONE));
+
+            chunk.get().getIntersectingEntities(aabb, entity ->
+                    positions.contains(entity.getLocation().getBlockPosition()) && isCustomBlockArmorStand(entity))
+                    .forEach(entity -> armorStandPool.release((ArmorStand) entity));
+        }
+
+        for(Block block : blocks) {
+            unregisterBlockAsLoaded(block);
+            blockToArmorStand.remove(block);
+            removeFromPersistentIndex(block);
+        }
+    }
+
+    /**
+     * Called by the {@link ArmorStandPool} before an armor stand is recycled,
+     * the tracked block it belongs to must not keep using it.
+     */
+    private void onArmorStandReleased(ArmorStand armorStand) {
+        CustomBlock<? extends CustomBlockDefinition> loadedBlock = loadedBlocks.get(Block.ofUnchecked(armorStand.getLocation()));
+
+        if(loadedBlock != null && loadedBlock.getArmorStandId().equals(armorStand.getUniqueId()))
+            loadedBlock.invalidateArmorStand();
+    }
+
+    @Listener(order = Order.POST)
+    public void onDestructEntity(DestructEntityEvent event) {
+        Entity entity = event.getTargetEntity();
+
+        if(!(entity instanceof ArmorStand))
+            return;
+
+        Block block = Block.ofUnchecked(entity.getLocation());
+
+        if(entity.getUniqueId().equals(blockToArmorStand.get(block))) {
+            blockToArmorStand.remove(block);
+            removeFromPersistentIndex(block);
+            unregisterBlockAsLoaded(block).ifPresent(CustomBlock::invalidateArmorStand);
+        }
     }
 
     private void registerLoadedBlocks() {
+        // Chunks loaded before this point are registered right away
+        chunkRegistrationQueue.clear();
         Sponge.getServer().getWorlds().stream()
                 .flatMap(world -> StreamSupport.stream(world.getLoadedChunks().spliterator(), false))
                 .forEach(this::registerBlocksInChunk);
     }
 
     private void registerBlocksInChunk(Chunk chunk) {
-        CustomItemServiceImpl service = CustomItemLibrary.getInstance().getService();
+        UUID worldId = chunk.getWorld().getUniqueId();
+        Vector3i chunkPosition = chunk.getPosition();
+
+        persistentBlockIndex.loadChunk(worldId, chunkPosition.getX(), chunkPosition.getZ());
+
+        Optional<LongObjectHashMap<UUID>> indexedBlocks = persistentBlockIndex.readChunk(worldId, chunkPosition.getX(), chunkPosition.getZ());
+
+        if(indexedBlocks.isPresent()) {
+            Optional<List<CustomBlock<? extends CustomBlockDefinition>>> blocks = resolveIndexedBlocks(chunk, indexedBlocks.get());
 
-        chunk.getEntities().stream()
+            if(blocks.isPresent()) {
+                blocks.get().forEach(this::trackBlock);
+                return;
+            }
+        }
+
+        // Not indexed yet or out of date, scan the entities and index the chunk
+        List<CustomBlock<? extends CustomBlockDefinition>> blocks = scanBlocksInChunk(chunk);
+
+        blocks.forEach(this::trackBlock);
+        persistentBlockIndex.writeChunk(worldId, chunkPosition.getX(), chunkPosition.getZ(), toIndexedBlocks(blocks));
+    }
+
+    /**
+     * Looks up the armor stands of the indexed blocks by their ids.
+     *
+     * @return The custom blocks, or {@link Optional#empty()}, if any of the indexed armor stands is missing
+     */
+    private Optional<List<CustomBlock<? extends CustomBlockDefinition>>> resolveIndexedBlocks(Chunk chunk, LongObjectHashMap<UUID> indexedBlocks) {
+        World world = chunk.getWorld();
+        Vector3i chunkPosition = chunk.getPosition();
+        int baseX = chunkPosition.getX() << BlockIndex.CHUNK_SHIFT;
+        int baseZ = chunkPosition.getZ() << BlockIndex.CHUNK_SHIFT;
+        List<CustomBlock<? extends CustomBlockDefinition>> blocks = Lists.newArrayListWithCapacity(indexedBlocks.size());
+        boolean[] valid = { true };
+
+        indexedBlocks.forEach((positionKey, armorStandId) -> {
+            if(!valid[0])
+                return;
+
+            Vector3i position = new Vector3i(baseX + BlockIndex.unpackX(positionKey), BlockIndex.unpackY(positionKey),
+                    baseZ + BlockIndex.unpackZ(positionKey));
+            Optional<ArmorStand> armorStand = world.getEntity(armorStandId)
+                    .filter(ArmorStand.class::isInstance)
+                    .map(ArmorStand.class::cast);
+            Optional<? extends CustomBlock<? extends CustomBlockDefinition>> block = armorStand.isPresent()
+                    ? getBlock(armorStand.get()) : Optional.empty();
+
+            if(!block.isPresent() || !block.get().getBlock().getPosition().equals(position))
+                valid[0] = false;
+            else if(isTrackedOnLoad(block.get()))
+                blocks.add(block.get());
+        });
+
+        return valid[0] ? Optional.of(blocks) : Optional.empty();
+    }
+
+    private List<CustomBlock<? extends CustomBlockDefinition>> scanBlocksInChunk(Chunk chunk) {
+        return chunk.getEntities().stream()
                 .filter(ArmorStand.class::isInstance)
                 .map(ArmorStand.class::cast)
-                .map(service::getBlock)
+                .map(this::getBlock)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
-                .filter(SimpleCustomBlock.class::isInstance)
-                .map(SimpleCustomBlock.class::cast)
-                .forEach(customBlock -> loadedBlocks.put(customBlock.getBlock(), customBlock));
+                .filter(CustomItemServiceImpl::isTrackedOnLoad)
+                .collect(Collectors.<CustomBlock<? extends CustomBlockDefinition>>toList());
+    }
+
+    /**
+     * Used by both the indexed and the scanning path, so a chunk tracks the same blocks either way.
+     *
+     * @return Whether the block found in a loaded chunk should be tracked
+     */
+    private static boolean isTrackedOnLoad(CustomBlock<? extends CustomBlockDefinition> block) {
+        return block instanceof SimpleCustomBlock;
+    }
+
+    private static LongObjectHashMap<UUID> toIndexedBlocks(List<CustomBlock<? extends CustomBlockDefinition>> blocks) {
+        LongObjectHashMap<UUID> indexedBlocks = new LongObjectHashMap<>(blocks.size());
+
+        for(CustomBlock<? extends CustomBlockDefinition> block : blocks) {
+            Vector3i position = block.getBlock().getPosition();
+
+            indexedBlocks.put(BlockIndex.positionKey(position.getX(), position.getY(), position.getZ()), block.getArmorStandId());
+        }
+
+        return indexedBlocks;
+    }
+
+    private void removeFromPersistentIndex(Block block) {
+        Vector3i position = block.getPosition();
+
+        persistentBlockIndex.remove(block.getWorldId(), position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * Compares the persistent index of all loaded chunks with the armor stands in them.
+     *
+     * @param rebuild Whether to rewrite the index of the chunks that do not match and track the blocks found in them
+     */
+    public BlockIndexVerification verifyBlockIndex(boolean rebuild) {
+        int checkedChunks = 0;
+        int mismatchedChunks = 0;
+
+        for(World world : Sponge.getServer().getWorlds()) {
+            UUID worldId = world.getUniqueId();
+
+            for(Chunk chunk : world.getLoadedChunks()) {
+                Vector3i chunkPosition = chunk.getPosition();
+                List<CustomBlock<? extends CustomBlockDefinition>> blocks = scanBlocksInChunk(chunk);
+                LongObjectHashMap<UUID> scannedBlocks = toIndexedBlocks(blocks);
+                Optional<LongObjectHashMap<UUID>> indexedBlocks = persistentBlockIndex.readChunk(worldId, chunkPosition.getX(), chunkPosition.getZ());
+
+                checkedChunks++;
+
+                if(indexedBlocks.isPresent() && matches(indexedBlocks.get(), scannedBlocks))
+                    continue;
+
+                mismatchedChunks++;
+
+                if(rebuild) {
+                    persistentBlockIndex.writeChunk(worldId, chunkPosition.getX(), chunkPosition.getZ(), scannedBlocks);
+                    blocks.forEach(this::trackBlock);
+                }
+            }
+        }
+
+        if(rebuild)
+            persistentBlockIndex.flush();
+
+        return new BlockIndexVerification(checkedChunks, mismatchedChunks, rebuild);
+    }
+
+    private static boolean matches(LongObjectHashMap<UUID> indexedBlocks, LongObjectHashMap<UUID> scannedBlocks) {
+        if(indexedBlocks.size() != scannedBlocks.size())
+            return false;
+
+        boolean[] matches = { true };
+
+        indexedBlocks.forEach((positionKey, armorStandId) -> {
+            if(!armorStandId.equals(scannedBlocks.get(positionKey)))
+                matches[0] = false;
+        });
+
+        return matches[0];
     }
 
     public Optional<CustomBlock<? extends CustomBlockDefinition>> registerBlockAsLoaded(CustomBlock<? extends CustomBlockDefinition> block) {
+        Vector3i position = block.getBlock().getPosition();
+
+        ensureChunkRegistered(block.getBlock());
+        setArmorStandAt(block.getBlock(), block.getArmorStandId());
+        persistentBlockIndex.put(block.getBlock().getWorldId(), position.getX(), position.getY(), position.getZ(),
+                block.getArmorStandId());
+
+        return trackBlock(block);
+    }
+
+    private Optional<CustomBlock<? extends CustomBlockDefinition>> trackBlock(CustomBlock<? extends CustomBlockDefinition> block) {
+        // Blocks without an update hook are only validated by block change and entity destruction events
+        if(block.getDefinition().isUpdated())
+            updateScheduler.schedule(block);
+        else
+            updateScheduler.unschedule(block.getBlock());
+
         return Optional.ofNullable(loadedBlocks.put(block.getBlock(), block));
     }
 
     @Listener
     public void onLoadChunk(LoadChunkEvent event) {
-        registerBlocksInChunk(event.getTargetChunk());
+        chunkRegistrationQueue.enqueue(event.getTargetChunk());
     }
 
     @Listener
     public void onPostPopulateChunk(PopulateChunkEvent.Post event) {
-        registerBlocksInChunk(event.getTargetChunk());
+        chunkRegistrationQueue.enqueue(event.getTargetChunk());
+    }
+
+    /**
+     * Registers the chunk of the block right away, if it is still waiting in the registration queue.
+     */
+    private void ensureChunkRegistered(Block block) {
+        if(chunkRegistrationQueue.isEmpty())
+            return;
+
+        Vector3i position = block.getPosition();
+
+        chunkRegistrationQueue.registerNow(block.getWorldId(),
+                position.getX() >> BlockIndex.CHUNK_SHIFT, position.getZ() >> BlockIndex.CHUNK_SHIFT);
+    }
+
+    @Listener
+    public void onUnloadChunk(UnloadChunkEvent event) {
+        Chunk chunk = event.getTargetChunk();
+        Vector3i chunkPosition = chunk.getPosition();
+        UUID worldId = chunk.getWorld().getUniqueId();
+
+        unregisterChunk(worldId, chunkPosition.getX(), chunkPosition.getZ());
+        persistentBlockIndex.unloadChunk(worldId, chunkPosition.getX(), chunkPosition.getZ());
+    }
+
+    @Listener
+    public void onUnloadWorld(UnloadWorldEvent event) {
+        UUID worldId = event.getTargetWorld().getUniqueId();
+
+        loadedBlocks.removeWorld(worldId, CustomBlock::invalidateArmorStand);
+        updateScheduler.unscheduleWorld(worldId);
+        blockToArmorStand.removeWorld(worldId);
+        blocksWithoutArmorStand.invalidateWorld(worldId);
+        chunkRegistrationQueue.cancelWorld(worldId);
+        armorStandPool.clearWorld(worldId);
+        persistentBlockIndex.unloadWorld(worldId);
+    }
+
+    /**
+     * The index must not claim a chunk is indexed while the saved chunk holds armor stands missing from the index,
+     * those would not be found after a crash, so the index is written whenever the world is saved.
+     */
+    @Listener
+    public void onSaveWorld(SaveWorldEvent.Post event) {
+        persistentBlockIndex.flushWorld(event.getTargetWorld().getUniqueId());
+    }
+
+    @Listener
+    public void onGameStoppingServer(GameStoppingServerEvent event) {
+        persistentBlockIndex.flush();
+    }
+
+    /**
+     * Drops all tracking state of a chunk, the blocks are registered again when the chunk is loaded.
+     *
+     * @return The number of custom blocks that were tracked in the chunk
+     */
+    public int unregisterChunk(UUID worldId, int chunkX, int chunkZ) {
+        chunkRegistrationQueue.cancel(worldId, chunkX, chunkZ);
+        blockToArmorStand.removeChunk(worldId, chunkX, chunkZ);
+        blocksWithoutArmorStand.invalidateChunk(worldId, chunkX, chunkZ);
+        updateScheduler.unscheduleChunk(worldId, chunkX, chunkZ);
+
+        return loadedBlocks.removeChunk(worldId, chunkX, chunkZ, CustomBlock::invalidateArmorStand);
+    }
+
+    /**
+     * @return The number of custom blocks currently tracked as loaded
+     */
+    public int getTrackedBlockCount() {
+        return loadedBlocks.size();
+    }
+
+    /**
+     * @return The number of chunks containing at least one tracked custom block
+     */
+    public int getTrackedChunkCount() {
+        return loadedBlocks.getChunkCount();
+    }
+
+    /**
+     * @return The number of cached armor stand lookups
+     */
+    public int getCachedArmorStandLookupCount() {
+        return blockToArmorStand.size();
+    }
+
+    /**
+     * @return The cache of blocks known not to be custom, along with its hit/miss/eviction statistics
+     */
+    public NegativeLookupCache getNegativeLookupCache() {
+        return blocksWithoutArmorStand;
+    }
+
+    /**
+     * @return The scheduler calling {@link CustomBlock#update()}, its time budget may be configured
+     */
+    public CustomBlockUpdateScheduler getUpdateScheduler() {
+        return updateScheduler;
+    }
+
+    /**
+     * @return The queue of loaded chunks waiting for their custom blocks to be registered
+     */
+    public ChunkRegistrationQueue getChunkRegistrationQueue() {
+        return chunkRegistrationQueue;
     }
 
     private void submitUpdateTask() {
@@ -388,33 +829,94 @@ public class CustomItemServiceImpl implements CustomItemService {
         customBlockUpdateTask = Sponge.getScheduler().createTaskBuilder()
                 .name("Custom block update task")
                 .intervalTicks(1)
-                .execute(this::update)
+                .execute(() -> {
+                    chunkRegistrationQueue.tick();
+                    updateScheduler.tick();
+                })
                 .submit(CustomItemLibrary.getInstance());
     }
 
-    private void update() {
-        Iterator<CustomBlock<? extends CustomBlockDefinition>> iterator = loadedBlocks.values().iterator();
+    /**
+     * @return The on-disk index of custom blocks, used to avoid scanning the entities of loaded chunks
+     */
+    public PersistentBlockIndex getPersistentBlockIndex() {
+        return persistentBlockIndex;
+    }
 
-        while(iterator.hasNext()) {
-            CustomBlock<? extends CustomBlockDefinition> customBlock = iterator.next();
+    /**
+     * @return The pool of recycled armor stands used by custom blocks and damage indicators
+     */
+    public ArmorStandPool getArmorStandPool() {
+        return armorStandPool;
+    }
 
-            if(customBlock.isAccessible()) {
-                customBlock.update();
-            } else {
-                iterator.remove();
-            }
-        }
+    private void submitArmorStandPoolReclaimTask() {
+        if(armorStandPoolReclaimTask != null)
+            armorStandPoolReclaimTask.cancel();
+
+        armorStandPoolReclaimTask = Sponge.getScheduler().createTaskBuilder()
+                .name("Armor stand pool reclaim task")
+                .interval(ARMOR_STAND_POOL_RECLAIM_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .execute(armorStandPool::reclaimIdle)
+                .submit(CustomItemLibrary.getInstance());
+    }
+
+    private void submitBlockIndexFlushTask() {
+        if(blockIndexFlushTask != null)
+            blockIndexFlushTask.cancel();
+
+        blockIndexFlushTask = Sponge.getScheduler().createTaskBuilder()
+                .name("Custom block index flush task")
+                .interval(BLOCK_INDEX_FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .execute(persistentBlockIndex::flush)
+                .submit(CustomItemLibrary.getInstance());
+    }
+
+    private void unregisterInaccessible(CustomBlock<? extends CustomBlockDefinition> customBlock) {
+        Block block = customBlock.getBlock();
+
+        // Another block might have been placed at the same position in the meantime
+        if(loadedBlocks.get(block) == customBlock)
+            unregisterBlockAsLoaded(block);
     }
 
     public Optional<CustomBlock<? extends CustomBlockDefinition>> unregisterBlockAsLoaded(Block block) {
+        updateScheduler.unschedule(block);
+
         return Optional.ofNullable(loadedBlocks.remove(block));
     }
 
+    /**
+     * @param worldId The world to search in
+     * @param min The minimum corner of the region, inclusive
+     * @param max The maximum corner of the region, inclusive
+     * @return The loaded custom blocks within the region, only chunks intersecting the region are visited
+     */
+    public List<CustomBlock<? extends CustomBlockDefinition>> getLoadedBlocks(UUID worldId, Vector3i min, Vector3i max) {
+        List<CustomBlock<? extends CustomBlockDefinition>> result = Lists.newArrayList();
+
+        if(!chunkRegistrationQueue.isEmpty()) {
+            for(int chunkX = Math.min(min.getX(), max.getX()) >> BlockIndex.CHUNK_SHIFT; chunkX <= Math.max(min.getX(), max.getX()) >> BlockIndex.CHUNK_SHIFT; chunkX++) {
+                for(int chunkZ = Math.min(min.getZ(), max.getZ()) >> BlockIndex.CHUNK_SHIFT; chunkZ <= Math.max(min.getZ(), max.getZ()) >> BlockIndex.CHUNK_SHIFT; chunkZ++)
+                    chunkRegistrationQueue.registerNow(worldId, chunkX, chunkZ);
+            }
+        }
+
+        loadedBlocks.forEachInRegion(worldId, min, max, (x, y, z, customBlock) -> result.add(customBlock));
+
+        return result;
+    }
+
     public static Path getDirectoryRegistries() {
         return CustomItemLibrary.getInstance().getConfigPath()
                 .resolveSibling(DIRECTORY_NAME_REGISTRIES);
     }
 
+    public static Path getDirectoryBlockIndex() {
+        return CustomItemLibrary.getInstance().getConfigPath()
+                .resolveSibling(DIRECTORY_NAME_BLOCK_INDEX);
+    }
+
     public static Path getDirectoryResourcePack() {
         return CustomItemLibrary.getInstance().getConfigPath()
                 .resolveSibling(DIRECTORY_NAME_RESOURCEPACK);
@@ -1,5 +1,6 @@
 package cz.creeper.customitemlibrary.event;
 
+import cz.creeper.customitemlibrary.managers.MiningManager;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
@@ -24,6 +25,12 @@ public class MiningStopEvent extends AbstractEvent {
     @NonNull
     private final BlockSnapshot snapshot;
 
+    /**
+     * The stopped mining session, no longer returned by {@link MiningManager#getMining(UUID)}
+     */
+    @NonNull
+    private final MiningManager.Mining mining;
+
     private final int durationTicks;
 
     @NonNull
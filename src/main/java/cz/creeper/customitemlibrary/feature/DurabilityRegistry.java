@@ -1,5 +1,6 @@
 package cz.creeper.customitemlibrary.feature;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.Lists;
@@ -12,6 +13,8 @@ import cz.creeper.customitemlibrary.CustomItemLibrary;
 import cz.creeper.customitemlibrary.CustomItemServiceImpl;
 import cz.creeper.customitemlibrary.feature.item.tool.CustomToolDefinition;
 import cz.creeper.customitemlibrary.util.Identifier;
+import lombok.Getter;
+import lombok.Setter;
 import ninja.leaping.configurate.ConfigurationNode;
 import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
@@ -25,8 +28,11 @@ import org.spongepowered.api.plugin.PluginContainer;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -34,20 +40,50 @@ import java.util.Optional;
 
 public class DurabilityRegistry {
     public static final String FILE_NAME = "toolRegistry.conf";
+    public static final String FILE_NAME_SNAPSHOT = "toolRegistry.bin";
     public static final String NODE_MODEL_IDS = "modelIds";
+    public static final int DURABILITY_MISSING = -1;
     private static final DurabilityRegistry INSTANCE = new DurabilityRegistry();
+    /**
+     * Whether {@link #FILE_NAME} is written alongside the binary snapshot, as a human-readable export.
+     */
+    @Getter
+    @Setter
+    private boolean exportHocon = true;
     private final Map<DurabilityIdentifier, String> durabilityIdToDirectoryName = Maps.newHashMap();
     private final BiMap<DurabilityIdentifier, Identifier> durabilityIdToModelId = HashBiMap.create();
     private final Map<ItemType, BiMap<Integer, Identifier>> typeToDurabilityToModelId = Maps.newHashMap();
+    // The durabilities assigned to models, per item type
+    private final Map<ItemType, BitSet> typeToUsedDurabilities = Maps.newIdentityHashMap();
+    // Dense lookup tables compiled from typeToDurabilityToModelId on first use, removed when the item type changes
+    private final Map<ItemType, CompiledTable> typeToCompiledTable = Maps.newIdentityHashMap();
 
     public <T extends CustomFeatureDefinition<? extends CustomFeature> & DefinesDurabilityModels> void register(ItemType itemType, T definition) {
-        register(itemType, definition.getPluginContainer(), definition.getModels(), definition.getModelDirectoryName());
+        register(Collections.singletonList(itemType), definition);
+    }
+
+    public <T extends CustomFeatureDefinition<? extends CustomFeature> & DefinesDurabilityModels> void register(List<ItemType> carriers, T definition) {
+        register(carriers, definition.getPluginContainer(), definition.getModels(), definition.getModelDirectoryName());
     }
 
     public ItemStack createItemUnsafe(ItemType itemType, PluginContainer pluginContainer, String model) {
         int durability = getDurability(itemType, pluginContainer, model)
                 .orElseThrow(() -> new IllegalStateException("The model should have been registered by now, is the definition actually being registered?"));
 
+        return createItem(itemType, durability);
+    }
+
+    /**
+     * Creates an item of the model, of whichever carrier item type the model has been assigned to.
+     */
+    public ItemStack createItemUnsafe(PluginContainer pluginContainer, String model) {
+        DurabilityIdentifier durabilityId = getDurabilityIdentifier(Identifier.of(pluginContainer.getId(), model))
+                .orElseThrow(() -> new IllegalStateException("The model should have been registered by now, is the definition actually being registered?"));
+
+        return createItem(durabilityId.getItemType(), durabilityId.getDurability());
+    }
+
+    private static ItemStack createItem(ItemType itemType, int durability) {
         ItemStack itemStack = ItemStack.of(itemType, 1);
 
         itemStack.offer(Keys.UNBREAKABLE, true);
@@ -57,80 +93,112 @@ public class DurabilityRegistry {
     }
 
     public void register(ItemType itemType, PluginContainer pluginContainer, Iterable<String> models, String modelDirectoryName) {
+        register(Collections.singletonList(itemType), pluginContainer, models, modelDirectoryName);
+    }
+
+    /**
+     * Assigns a durability to each of the models. The carrier item types are filled in order,
+     * a model is assigned to the next carrier once the number of uses of the previous one is used up.
+     *
+     * @param carriers The item types which may carry the models, in order of preference
+     */
+    public void register(List<ItemType> carriers, PluginContainer pluginContainer, Iterable<String> models, String modelDirectoryName) {
+        Preconditions.checkArgument(!carriers.isEmpty(), "At least one carrier item type must be specified.");
+
         models.forEach(model -> {
-            BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.computeIfAbsent(itemType, k -> HashBiMap.create());
-            Identifier modelId = new Identifier(pluginContainer.getId(), model);
+            Identifier modelId = Identifier.of(pluginContainer.getId(), model);
+            DurabilityIdentifier durabilityId = durabilityIdToModelId.inverse().get(modelId);
 
-            // Is the model already registered? If so, skip.
-            Integer registeredDurability = durabilityToModelId.inverse().get(modelId);
+            // Is the model already registered on one of the carriers? If so, keep its durability.
+            if(durabilityId == null || !carriers.contains(durabilityId.getItemType())) {
+                if(durabilityId != null)
+                    release(durabilityId);
 
-            if(registeredDurability == null) {
-                registeredDurability = getAvailableDurability(itemType);
+                durabilityId = getAvailableDurability(carriers);
             }
 
-            DurabilityIdentifier durabilityId = new DurabilityIdentifier(itemType, registeredDurability);
+            ItemType itemType = durabilityId.getItemType();
+            int durability = durabilityId.getDurability();
 
             durabilityIdToDirectoryName.put(durabilityId, modelDirectoryName);
             durabilityIdToModelId.put(durabilityId, modelId);
-            durabilityToModelId.put(registeredDurability, modelId);
+            typeToDurabilityToModelId.computeIfAbsent(itemType, k -> HashBiMap.create()).put(durability, modelId);
+            markDurabilityUsed(itemType, durability);
+            typeToCompiledTable.remove(itemType);
         });
     }
 
     /**
-     * Returns the first available durability of shears.
-     * The durability of 0 is skipped to preserve the vanilla feature with the unbreakable property enabled.
-     *
-     * @return The first available durability
+     * Frees the durability, so it can be assigned to another model.
      */
-    private int getAvailableDurability(ItemType itemType) {
-        if (durabilityIdToModelId.size() <= 0)
-            return 1;
-
+    private void release(DurabilityIdentifier durabilityId) {
+        ItemType itemType = durabilityId.getItemType();
         BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.get(itemType);
+        BitSet usedDurabilities = typeToUsedDurabilities.get(itemType);
 
-        if (durabilityToModelId == null || durabilityToModelId.size() == 0)
-            return 1;
-
-        List<Integer> durabilities = Lists.newArrayList(durabilityToModelId.keySet());
+        durabilityIdToDirectoryName.remove(durabilityId);
+        durabilityIdToModelId.remove(durabilityId);
 
-        Collections.sort(durabilities);
+        if(durabilityToModelId != null)
+            durabilityToModelId.remove(durabilityId.getDurability());
 
-        int durability = Integer.MIN_VALUE;
+        if(usedDurabilities != null)
+            usedDurabilities.clear(durabilityId.getDurability());
 
-        if (durabilities.get(durabilities.size() - 1) > durabilities.size()) {
-            int expected = 1;
-
-            for (int current : durabilities) {
-                if (current != expected) {
-                    durability = expected;
-                    break;
-                }
+        typeToCompiledTable.remove(itemType);
+    }
 
-                expected++;
-            }
-        } else {
-            durability = durabilities.size() + 1;
+    /**
+     * Returns the lowest available durability of the first carrier which is not full.
+     * The durability of 0 is skipped to preserve the vanilla feature with the unbreakable property enabled.
+     *
+     * @return The first available durability
+     */
+    private DurabilityIdentifier getAvailableDurability(List<ItemType> carriers) {
+        for(ItemType itemType : carriers) {
+            BitSet usedDurabilities = typeToUsedDurabilities.get(itemType);
+            int durability = usedDurabilities != null ? usedDurabilities.nextClearBit(1) : 1;
+            int numberOfUses = CustomToolDefinition.getNumberOfUses(itemType)
+                    .orElseThrow(() -> new IllegalStateException("Could not access the max number of uses."));
+
+            if (durability < numberOfUses)
+                return new DurabilityIdentifier(itemType, durability);
         }
 
-        if (durability <= 0)
-            throw new IllegalStateException("This should be unreachable!");
-
-        int numberOfUses = CustomToolDefinition.getNumberOfUses(itemType)
-                .orElseThrow(() -> new IllegalStateException("Could not access the max number of uses."));
+        throw new IllegalStateException("The number of custom models exceeded the capacity of the item types " + carriers + ".");
+    }
 
-        if (durability >= numberOfUses)
-            throw new IllegalStateException("The number of custom tools exceeded the limit of " + (numberOfUses - 1) + ".");
+    public Optional<DurabilityIdentifier> getDurabilityIdentifier(Identifier modelId) {
+        return Optional.ofNullable(durabilityIdToModelId.inverse().get(modelId));
+    }
 
-        return durability;
+    private void markDurabilityUsed(ItemType itemType, int durability) {
+        typeToUsedDurabilities.computeIfAbsent(itemType, k -> new BitSet()).set(durability);
     }
 
     public void load(Path directory) {
-        durabilityIdToModelId.clear();
-        typeToDurabilityToModelId.clear();
+        clear();
 
-        try {
-            Path configPath = directory.resolve(FILE_NAME);
+        Path snapshotPath = directory.resolve(FILE_NAME_SNAPSHOT);
 
+        if (Files.isRegularFile(snapshotPath)) {
+            try {
+                DurabilityRegistrySnapshot.read(snapshotPath).forEach(this::putLoaded);
+                return;
+            } catch (Throwable t) {
+                CustomItemLibrary.getInstance().getLogger()
+                        .error("Could not load the custom tool registry snapshot, falling back to '" + FILE_NAME + "'.");
+                t.printStackTrace();
+                clear();
+            }
+        }
+
+        // Registries saved before the binary snapshot was introduced
+        loadHocon(directory.resolve(FILE_NAME));
+    }
+
+    private void loadHocon(Path configPath) {
+        try {
             if (!Files.isRegularFile(configPath))
                 return;
 
@@ -161,32 +229,93 @@ public class DurabilityRegistry {
                 }
 
                 // Add to registry
-                Identifier modelId = Identifier.parse(entry.getValue().getString());
-
-                durabilityIdToModelId.put(durabilityId, modelId);
-
-                BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.computeIfAbsent(durabilityId.getItemType(), k -> HashBiMap.create());
-
-                durabilityToModelId.put(durabilityId.getDurability(), modelId);
+                putLoaded(durabilityId, Identifier.parse(entry.getValue().getString()));
             }
         } catch (Throwable t) {
             CustomItemLibrary.getInstance().getLogger()
                     .error("Could not load the custom tool registry, aborting and creating a new, empty one.");
             t.printStackTrace();
-            durabilityIdToModelId.clear();
-            typeToDurabilityToModelId.clear();
+            clear();
         }
     }
 
+    private void putLoaded(DurabilityIdentifier durabilityId, Identifier modelId) {
+        durabilityIdToModelId.put(durabilityId, modelId);
+
+        BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.computeIfAbsent(durabilityId.getItemType(), k -> HashBiMap.create());
+
+        durabilityToModelId.put(durabilityId.getDurability(), modelId);
+        markDurabilityUsed(durabilityId.getItemType(), durabilityId.getDurability());
+    }
+
+    private void clear() {
+        durabilityIdToModelId.clear();
+        typeToDurabilityToModelId.clear();
+        typeToUsedDurabilities.clear();
+        typeToCompiledTable.clear();
+    }
+
+    /**
+     * Saves the binary snapshot, which is loaded on startup, and the human-readable HOCON export, if enabled.
+     */
     public void save(Path directory) {
-        Path configPath = directory.resolve(FILE_NAME);
+        Path snapshotPath = directory.resolve(FILE_NAME_SNAPSHOT);
+
+        try {
+            DurabilityRegistrySnapshot.write(snapshotPath, typeToDurabilityToModelId);
+        } catch (IOException e) {
+            e.printStackTrace();
+            CustomItemLibrary.getInstance().getLogger()
+                    .error("Could not save the custom tool registry snapshot: " + e.getLocalizedMessage());
+
+            // The previous snapshot would be preferred over the newer HOCON file on the next load
+            if (!discardStaleSnapshot(snapshotPath))
+                return;
+
+            saveHocon(directory.resolve(FILE_NAME));
+            return;
+        }
+
+        if (exportHocon)
+            saveHocon(directory.resolve(FILE_NAME));
+    }
+
+    /**
+     * Moves a snapshot, which could not be overwritten, out of the way.
+     *
+     * @return {@code true}, if no snapshot is left at the path
+     */
+    private boolean discardStaleSnapshot(Path snapshotPath) {
+        if (!Files.exists(snapshotPath))
+            return true;
+
+        Path stalePath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".stale");
+
+        try {
+            Files.move(snapshotPath, stalePath, StandardCopyOption.REPLACE_EXISTING);
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn("Moved the outdated custom tool registry snapshot to '" + stalePath.getFileName()
+                            + "', the registry will be loaded from '" + FILE_NAME + "'.");
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            CustomItemLibrary.getInstance().getLogger()
+                    .error("Could not move the outdated custom tool registry snapshot away, not saving '"
+                            + FILE_NAME + "' either: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private void saveHocon(Path configPath) {
+        Path temporaryPath = configPath.resolveSibling(configPath.getFileName() + ".tmp");
         ConfigurationLoader<CommentedConfigurationNode> loader =
-                HoconConfigurationLoader.builder().setPath(configPath).build();
+                HoconConfigurationLoader.builder().setPath(temporaryPath).build();
         ConfigurationOptions options = CustomItemLibrary.getInstance().getDefaultConfigurationOptions();
         CommentedConfigurationNode rootNode = loader.createEmptyNode(options);
         CommentedConfigurationNode modelIdsNode = rootNode.getNode(NODE_MODEL_IDS);
 
-        modelIdsNode.setComment("DO NOT EDIT THIS FILE MANUALLY UNLESS YOU ARE ABSOLUTELY SURE ABOUT WHAT YOU ARE DOING!");
+        modelIdsNode.setComment("DO NOT EDIT THIS FILE MANUALLY UNLESS YOU ARE ABSOLUTELY SURE ABOUT WHAT YOU ARE DOING!"
+                + " It is only an export, the registry is loaded from '" + FILE_NAME_SNAPSHOT + "', if present.");
 
         for (Map.Entry<DurabilityIdentifier, Identifier> entry : durabilityIdToModelId.entrySet()) {
             DurabilityIdentifier durability = entry.getKey();
@@ -197,12 +326,13 @@ public class DurabilityRegistry {
 
         try {
             Files.createDirectories(configPath.getParent());
-
-            if (Files.exists(configPath))
-                Files.delete(configPath);
-
-            Files.createFile(configPath);
             loader.save(rootNode);
+
+            try {
+                Files.move(temporaryPath, configPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, configPath, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
             e.printStackTrace();
             CustomItemLibrary.getInstance().getLogger()
@@ -295,21 +425,57 @@ public class DurabilityRegistry {
     }
 
     public Optional<Integer> getDurability(ItemType itemType, PluginContainer plugin, String model) {
-        return getDurabilityByModelId(itemType, new Identifier(plugin.getId(), model));
+        return getDurabilityByModelId(itemType, Identifier.of(plugin.getId(), model));
     }
 
     public Optional<Integer> getDurabilityByModelId(ItemType itemType, Identifier modelId) {
-        return Optional.ofNullable(typeToDurabilityToModelId.get(itemType))
-                .flatMap(durabilityToModelId -> Optional.ofNullable(durabilityToModelId.inverse().get(modelId)));
+        int durability = getDurabilityOrMissing(itemType, modelId);
+
+        return durability != DURABILITY_MISSING ? Optional.of(durability) : Optional.empty();
+    }
+
+    /**
+     * @return The durability of the model, or {@link #DURABILITY_MISSING}
+     */
+    public int getDurabilityOrMissing(ItemType itemType, Identifier modelId) {
+        CompiledTable table = getCompiledTable(itemType);
+
+        if (table == null)
+            return DURABILITY_MISSING;
+
+        Short durability = table.modelIdToDurability.get(modelId);
+
+        return durability != null ? durability : DURABILITY_MISSING;
     }
 
     public Optional<Identifier> getModelId(ItemType itemType, int durability) {
-        BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.get(itemType);
+        return Optional.ofNullable(getModelIdOrNull(itemType, durability));
+    }
 
-        if (durabilityToModelId == null)
-            return Optional.empty();
+    public Identifier getModelIdOrNull(ItemType itemType, int durability) {
+        CompiledTable table = getCompiledTable(itemType);
 
-        return Optional.ofNullable(durabilityToModelId.get(durability));
+        if (table == null || durability < 0 || durability >= table.durabilityToModelId.length)
+            return null;
+
+        return table.durabilityToModelId[durability];
+    }
+
+    private CompiledTable getCompiledTable(ItemType itemType) {
+        CompiledTable table = typeToCompiledTable.get(itemType);
+
+        if (table == null) {
+            BiMap<Integer, Identifier> durabilityToModelId = typeToDurabilityToModelId.get(itemType);
+
+            if (durabilityToModelId == null)
+                return null;
+
+            table = new CompiledTable(durabilityToModelId);
+
+            typeToCompiledTable.put(itemType, table);
+        }
+
+        return table;
     }
 
     public static Optional<String> resolveCurrentModel(ItemStack itemStack, PluginContainer pluginContainer) {
@@ -334,4 +500,25 @@ public class DurabilityRegistry {
     public static DurabilityRegistry getInstance() {
         return INSTANCE;
     }
+
+    /**
+     * The models of an item type, as an array indexed by durability and a reverse table.
+     */
+    private static class CompiledTable {
+        private final Identifier[] durabilityToModelId;
+        private final Map<Identifier, Short> modelIdToDurability;
+
+        private CompiledTable(BiMap<Integer, Identifier> durabilityToModelId) {
+            int maxDurability = durabilityToModelId.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+
+            this.durabilityToModelId = new Identifier[maxDurability + 1];
+            this.modelIdToDurability = Maps.newHashMapWithExpectedSize(durabilityToModelId.size());
+
+            Preconditions.checkState(maxDurability <= Short.MAX_VALUE, "Durability out of the supported range: " + maxDurability);
+            durabilityToModelId.forEach((durability, modelId) -> {
+                this.durabilityToModelId[durability] = modelId;
+                this.modelIdToDurability.put(modelId, (short) (int) durability);
+            });
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package cz.creeper.customitemlibrary.feature;
+
+import com.google.common.collect.Maps;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.util.Identifier;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.item.ItemType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * The binary file the durabilities assigned to models are stored in:
+ *
+ * <pre>
+ * int  magic
+ * int  version
+ * int  payloadLength
+ * payload:
+ *   int itemTypeCount
+ *   per item type:
+ *     UTF itemTypeId
+ *     int modelCount
+ *     per model: int durability, UTF namespace, UTF value
+ * long checksum                              CRC32 of the payload
+ * </pre>
+ *
+ * The file is written to a temporary file first, which is synced and then moved over the previous one,
+ * so a crash leaves either the previous or the new snapshot in place.
+ */
+final class DurabilityRegistrySnapshot {
+    public static final int MAGIC = 0x43494452;  // "CIDR"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private DurabilityRegistrySnapshot() {}
+
+    public static void write(Path path, Map<ItemType, ? extends Map<Integer, Identifier>> typeToDurabilityToModelId) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+
+        payload.writeInt(typeToDurabilityToModelId.size());
+
+        for(Map.Entry<ItemType, ? extends Map<Integer, Identifier>> typeEntry : typeToDurabilityToModelId.entrySet()) {
+            payload.writeUTF(typeEntry.getKey().getId());
+            payload.writeInt(typeEntry.getValue().size());
+
+            for(Map.Entry<Integer, Identifier> entry : typeEntry.getValue().entrySet()) {
+                payload.writeInt(entry.getKey());
+                payload.writeUTF(entry.getValue().getNamespace());
+                payload.writeUTF(entry.getValue().getValue());
+            }
+        }
+
+        payload.flush();
+
+        byte[] payloadArray = payloadBytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadArray.length + 8);
+
+        checksum.update(payloadArray);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(payloadArray.length);
+        buffer.put(payloadArray);
+        buffer.putLong(checksum.getValue());
+        buffer.flip();
+        Files.createDirectories(path.getParent());
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try(FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        forceDirectory(path.getParent());
+    }
+
+    /**
+     * Syncs the directory entry of a moved file, so the rename itself survives a crash.
+     * Not every platform allows opening a directory, in which case nothing is done.
+     */
+    private static void forceDirectory(Path directory) {
+        try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch(IOException e) {
+            // Directories cannot be opened as channels on some platforms (e.g. Windows).
+        }
+    }
+
+    /**
+     * @return The model ids by durability identifier, models of unknown item types are skipped
+     * @throws IOException If the file could not be read, or is damaged
+     */
+    public static Map<DurabilityIdentifier, Identifier> read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+            throw new IOException("Not a durability registry snapshot: " + path);
+
+        int version = buffer.getInt();
+
+        if(version != VERSION)
+            throw new IOException("Unsupported durability registry snapshot version: " + version);
+
+        int payloadLength = buffer.getInt();
+
+        if(payloadLength < 0 || buffer.remaining() != payloadLength + 8)
+            throw new IOException("Truncated durability registry snapshot: " + path);
+
+        byte[] payloadArray = new byte[payloadLength];
+        CRC32 checksum = new CRC32();
+
+        buffer.get(payloadArray);
+        checksum.update(payloadArray);
+
+        if(buffer.getLong() != checksum.getValue())
+            throw new IOException("The checksum of the durability registry snapshot does not match: " + path);
+
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(payloadArray));
+        Map<DurabilityIdentifier, Identifier> durabilityIdToModelId = Maps.newHashMap();
+        int itemTypeCount = payload.readInt();
+
+        for(int typeIndex = 0; typeIndex < itemTypeCount; typeIndex++) {
+            String itemTypeId = payload.readUTF();
+            Optional<ItemType> itemType = Sponge.getRegistry().getType(ItemType.class, itemTypeId);
+            int modelCount = payload.readInt();
+
+            if(!itemType.isPresent()) {
+                CustomItemLibrary.getInstance().getLogger()
+                        .warn("Could not find the item type '" + itemTypeId + "', skipping its " + modelCount + " models.");
+            }
+
+            for(int modelIndex = 0; modelIndex < modelCount; modelIndex++) {
+                int durability = payload.readInt();
+                Identifier modelId = Identifier.of(payload.readUTF(), payload.readUTF());
+
+                if(itemType.isPresent())
+                    durabilityIdToModelId.put(new DurabilityIdentifier(itemType.get(), durability), modelId);
+            }
+        }
+
+        return durabilityIdToModelId;
+    }
+}
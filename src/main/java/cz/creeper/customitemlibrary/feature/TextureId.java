@@ -9,6 +9,9 @@ import org.spongepowered.api.plugin.PluginContainer;
 
 import java.util.Optional;
 
+/**
+ * Texture ids are not interned, the same id may be split into a directory and a file name differently.
+ */
 @Getter
 public class TextureId extends Identifier {
     private final PluginContainer pluginContainer;
@@ -1,17 +1,19 @@
 package cz.creeper.customitemlibrary.feature.block;
 
 import com.google.common.base.Preconditions;
-import cz.creeper.customitemlibrary.CustomItemServiceImpl;
 import cz.creeper.customitemlibrary.feature.AbstractCustomModelledFeature;
 import cz.creeper.customitemlibrary.util.Block;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import org.spongepowered.api.entity.living.ArmorStand;
 
+import java.lang.ref.WeakReference;
+import java.util.Optional;
 import java.util.UUID;
 
-@EqualsAndHashCode(callSuper = true)
+@EqualsAndHashCode(callSuper = true, exclude = "armorStandReference")
 @Getter
 public abstract class AbstractCustomBlock<T extends CustomBlockDefinition<? extends AbstractCustomBlock<T>>> extends AbstractCustomModelledFeature<T> implements CustomBlock<T> {
     @NonNull
@@ -20,27 +22,55 @@ public abstract class AbstractCustomBlock<T extends CustomBlockDefinition<? exte
     @NonNull
     private final UUID armorStandId;
 
+    // Cleared when the armor stand is released to the pool, destroyed, or its chunk or world is unloaded
+    @Getter(AccessLevel.NONE)
+    private WeakReference<ArmorStand> armorStandReference;
+
     public AbstractCustomBlock(T definition, Block block, UUID armorStandId) {
         super(definition);
         Preconditions.checkArgument(block.getWorld().isPresent(), "Invalid extent.");
 
         this.block = block;
 
-        Preconditions.checkArgument(getExtent().getEntity(armorStandId)
-                .filter(ArmorStand.class::isInstance).isPresent(), "The armor stand is not accessible.");
+        ArmorStand armorStand = getExtent().getEntity(armorStandId)
+                .filter(ArmorStand.class::isInstance)
+                .map(ArmorStand.class::cast)
+                .orElseThrow(() -> new IllegalArgumentException("The armor stand is not accessible."));
 
         this.armorStandId = armorStandId;
+        this.armorStandReference = new WeakReference<>(armorStand);
     }
 
     public AbstractCustomBlock(T definition, Block block, ArmorStand armorStand) {
         this(definition, block, armorStand.getUniqueId());
     }
 
+    /**
+     * @return Whether the armor stand has neither been released to the pool, destroyed nor unloaded
+     */
     @Override
     public boolean isAccessible() {
-        return block.getLocation().map(location ->
-                location.getExtent().getEntity(armorStandId)
-                        .map(CustomItemServiceImpl::isCustomBlockArmorStand).orElse(false))
-                .orElse(false);
+        return getLoadedArmorStand().isPresent();
+    }
+
+    @Override
+    public Optional<ArmorStand> getLoadedArmorStand() {
+        ArmorStand armorStand = armorStandReference != null ? armorStandReference.get() : null;
+
+        return armorStand != null && !armorStand.isRemoved() ? Optional.of(armorStand) : Optional.empty();
+    }
+
+    @Override
+    public void invalidateArmorStand() {
+        armorStandReference = null;
+    }
+
+    /**
+     * @throws IllegalStateException If the armor stand is not loaded, or has been released to the pool
+     */
+    @Override
+    public ArmorStand getDataHolder() {
+        return getLoadedArmorStand()
+                .orElseThrow(() -> new IllegalStateException("The armor stand of this custom block is not accessible."));
     }
 }
@@ -1,5 +1,6 @@
 package cz.creeper.customitemlibrary.feature.block;
 
+import com.google.common.base.Preconditions;
 import cz.creeper.customitemlibrary.feature.AbstractCustomModelledFeatureDefinition;
 import cz.creeper.customitemlibrary.util.Block;
 import lombok.EqualsAndHashCode;
@@ -25,13 +26,24 @@ public abstract class AbstractCustomBlockDefinition<T extends CustomBlock<? exte
 
     private final Consumer<T> onUpdate;
 
+    private final boolean updated;
+
+    private final int updatePeriodTicks;
+
     public AbstractCustomBlockDefinition(PluginContainer pluginContainer, String typeId, String defaultModel, Iterable<String> additionalModels, BlockState effectState, boolean rotateHorizontally, boolean generateDamageIndicatorModels, Consumer<T> onUpdate) {
+        this(pluginContainer, typeId, defaultModel, additionalModels, effectState, rotateHorizontally, generateDamageIndicatorModels, onUpdate, 1);
+    }
+
+    public AbstractCustomBlockDefinition(PluginContainer pluginContainer, String typeId, String defaultModel, Iterable<String> additionalModels, BlockState effectState, boolean rotateHorizontally, boolean generateDamageIndicatorModels, Consumer<T> onUpdate, int updatePeriodTicks) {
         super(pluginContainer, typeId, defaultModel, additionalModels);
+        Preconditions.checkArgument(updatePeriodTicks > 0, "The update period must be positive.");
 
         this.effectState = effectState;
         this.rotateHorizontally = rotateHorizontally;
         this.generateDamageIndicatorModels = generateDamageIndicatorModels;
         this.onUpdate = onUpdate != null ? onUpdate : block -> {};
+        this.updated = onUpdate != null;
+        this.updatePeriodTicks = updatePeriodTicks;
     }
 
     protected abstract Optional<T> wrapBarrierIfPossible(Block block);
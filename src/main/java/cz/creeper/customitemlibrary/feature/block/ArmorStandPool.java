@@ -0,0 +1,167 @@
+package cz.creeper.customitemlibrary.feature.block;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import cz.creeper.customitemlibrary.data.mutable.CustomBlockData;
+import cz.creeper.customitemlibrary.data.mutable.CustomFeatureData;
+import cz.creeper.customitemlibrary.util.Block;
+import lombok.Getter;
+import lombok.ToString;
+import org.spongepowered.api.data.key.Keys;
+import org.spongepowered.api.entity.living.ArmorStand;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.world.World;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Recycles the invisible marker armor stands of custom blocks and damage indicators.
+ * Released armor stands are stripped of their data and parked where they are, instead of being despawned,
+ * and are teleported to the next block that needs one. Parked armor stands are not persisted,
+ * at most {@link #getHighWaterMark()} are kept per world and those idle for too long are removed.
+ * Every released armor stand is passed to the release listener first, so the block owning it can drop it.
+ */
+@ToString(of = {"highWaterMark", "idleMillis", "created", "reused", "discarded", "reclaimed"})
+public class ArmorStandPool {
+    public static final int DEFAULT_HIGH_WATER_MARK = 64;
+    public static final long DEFAULT_IDLE_MILLIS = 30_000;
+    private final Map<UUID, Deque<Entry>> worldIdToParked = Maps.newHashMap();
+    private final Consumer<ArmorStand> releaseListener;
+    @Getter
+    private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+    @Getter
+    private long idleMillis = DEFAULT_IDLE_MILLIS;
+    @Getter
+    private long created;
+    @Getter
+    private long reused;
+    @Getter
+    private long discarded;
+    @Getter
+    private long reclaimed;
+
+    public ArmorStandPool(Consumer<ArmorStand> releaseListener) {
+        Preconditions.checkNotNull(releaseListener, "releaseListener");
+
+        this.releaseListener = releaseListener;
+    }
+
+    public void setHighWaterMark(int highWaterMark) {
+        Preconditions.checkArgument(highWaterMark >= 0, "The high-water mark must not be negative.");
+
+        this.highWaterMark = highWaterMark;
+    }
+
+    public void setIdleMillis(long idleMillis) {
+        Preconditions.checkArgument(idleMillis >= 0, "The idle time must not be negative.");
+
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * @return The number of parked armor stands in all worlds
+     */
+    public int size() {
+        return worldIdToParked.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Provides a spawned dummy armor stand in the center of the block, see {@link CustomBlockDefinition#createDummyArmorStand(Block)}.
+     *
+     * @param block The block to place the armor stand in
+     * @param cause The cause used to spawn a new armor stand, if none can be reused
+     * @return The armor stand
+     */
+    public ArmorStand acquire(Block block, Cause cause) {
+        World world = block.getWorld()
+                .orElseThrow(() -> new IllegalStateException("Could not access the world this block resides in."));
+        Vector3d position = CustomBlockDefinition.getArmorStandPosition(block);
+        Deque<Entry> parked = worldIdToParked.get(world.getUniqueId());
+
+        while(parked != null && !parked.isEmpty()) {
+            ArmorStand armorStand = parked.pollFirst().armorStand;
+
+            // The chunk it was parked in might have been unloaded, discarding it
+            if(armorStand.isRemoved() || !world.getEntity(armorStand.getUniqueId()).isPresent())
+                continue;
+
+            armorStand.setLocation(world.getLocation(position));
+            armorStand.setRotation(Vector3d.ZERO);
+            armorStand.setHeadRotation(Vector3d.ZERO);
+            armorStand.offer(Keys.PERSISTS, true);
+            reused++;
+
+            return armorStand;
+        }
+
+        ArmorStand armorStand = CustomBlockDefinition.createDummyArmorStand(block);
+
+        world.spawnEntity(armorStand, cause);
+        created++;
+
+        return armorStand;
+    }
+
+    /**
+     * Parks the armor stand for reuse, or removes it, if the pool of its world is full.
+     */
+    public void release(ArmorStand armorStand) {
+        if(armorStand.isRemoved())
+            return;
+
+        releaseListener.accept(armorStand);
+
+        Deque<Entry> parked = worldIdToParked.computeIfAbsent(armorStand.getWorld().getUniqueId(), k -> Queues.newArrayDeque());
+
+        if(parked.size() >= highWaterMark) {
+            armorStand.remove();
+            discarded++;
+            return;
+        }
+
+        armorStand.remove(CustomFeatureData.class);
+        armorStand.remove(CustomBlockData.class);
+        armorStand.setHelmet(null);
+        armorStand.offer(Keys.PERSISTS, false);
+        parked.addFirst(new Entry(armorStand, System.currentTimeMillis()));
+    }
+
+    /**
+     * Removes the armor stands parked for longer than {@link #getIdleMillis()}.
+     */
+    public void reclaimIdle() {
+        long threshold = System.currentTimeMillis() - idleMillis;
+
+        worldIdToParked.values().forEach(parked -> {
+            // The most recently parked armor stands are at the front
+            while(!parked.isEmpty() && parked.peekLast().parkedMillis <= threshold) {
+                parked.pollLast().armorStand.remove();
+                reclaimed++;
+            }
+        });
+
+        worldIdToParked.values().removeIf(Deque::isEmpty);
+    }
+
+    /**
+     * Forgets the armor stands parked in the world, they are not persisted anyway.
+     */
+    public void clearWorld(UUID worldId) {
+        worldIdToParked.remove(worldId);
+    }
+
+    private static class Entry {
+        private final ArmorStand armorStand;
+        private final long parkedMillis;
+
+        private Entry(ArmorStand armorStand, long parkedMillis) {
+            this.armorStand = armorStand;
+            this.parkedMillis = parkedMillis;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cz.creeper.customitemlibrary.feature.block;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import lombok.Getter;
+import lombok.ToString;
+import org.spongepowered.api.world.Chunk;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Defers the registration of custom blocks in newly loaded chunks, so that many chunks loading
+ * within a single tick do not stall it. The queue is drained within a time budget per tick,
+ * chunks needed earlier may be registered on demand using {@link #registerNow(UUID, int, int)}.
+ */
+@ToString(of = {"budgetNanos", "size", "onDemandRegistrations"})
+public class ChunkRegistrationQueue {
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000;
+    private final Map<UUID, LongObjectHashMap<Entry>> worldIdToEntries = Maps.newHashMap();
+    private final Queue<Entry> queue = Queues.newArrayDeque();
+    private final Consumer<Chunk> registration;
+    @Getter
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    @Getter
+    private int size;
+    @Getter
+    private long onDemandRegistrations;
+    @Getter
+    private int lastTickRegistrations;
+    @Getter
+    private long lastTickNanos;
+    @Getter
+    private long lastTickMaxLatencyNanos;
+
+    /**
+     * @param registration Registers the custom blocks of a chunk
+     */
+    public ChunkRegistrationQueue(Consumer<Chunk> registration) {
+        this.registration = registration;
+    }
+
+    /**
+     * @param budgetNanos The maximum time spent registering chunks each tick, at least one chunk is always registered
+     */
+    public void setBudgetNanos(long budgetNanos) {
+        Preconditions.checkArgument(budgetNanos >= 0, "The budget must not be negative.");
+
+        this.budgetNanos = budgetNanos;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectHashMap<Entry> entries = worldIdToEntries.get(worldId);
+
+        return entries != null && entries.containsKey(BlockIndex.chunkKey(chunkX, chunkZ));
+    }
+
+    public void enqueue(Chunk chunk) {
+        UUID worldId = chunk.getWorld().getUniqueId();
+        long chunkKey = BlockIndex.chunkKey(chunk.getPosition().getX(), chunk.getPosition().getZ());
+        LongObjectHashMap<Entry> entries = worldIdToEntries.computeIfAbsent(worldId, k -> new LongObjectHashMap<>());
+        Entry entry = new Entry(chunk, worldId, chunkKey, System.nanoTime());
+        Entry previous = entries.put(chunkKey, entry);
+
+        if(previous != null)
+            previous.chunk = null;
+        else
+            size++;
+
+        queue.add(entry);
+    }
+
+    /**
+     * Registers the chunk right away, if it is still queued.
+     *
+     * @return Whether the chunk was queued
+     */
+    public boolean registerNow(UUID worldId, int chunkX, int chunkZ) {
+        Entry entry = remove(worldId, BlockIndex.chunkKey(chunkX, chunkZ));
+
+        if(entry == null)
+            return false;
+
+        onDemandRegistrations++;
+        registration.accept(entry.chunk);
+        entry.chunk = null;
+
+        return true;
+    }
+
+    /**
+     * Drops the chunk from the queue without registering it.
+     */
+    public boolean cancel(UUID worldId, int chunkX, int chunkZ) {
+        Entry entry = remove(worldId, BlockIndex.chunkKey(chunkX, chunkZ));
+
+        if(entry == null)
+            return false;
+
+        entry.chunk = null;
+        return true;
+    }
+
+    /**
+     * Drops all chunks of the world from the queue without registering them.
+     */
+    public void cancelWorld(UUID worldId) {
+        LongObjectHashMap<Entry> entries = worldIdToEntries.remove(worldId);
+
+        if(entries == null)
+            return;
+
+        size -= entries.size();
+        entries.forEachValue(entry -> entry.chunk = null);
+    }
+
+    public void clear() {
+        worldIdToEntries.clear();
+        queue.clear();
+        size = 0;
+    }
+
+    /**
+     * Should be called once every tick.
+     */
+    public void tick() {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int registrations = 0;
+        long maxLatencyNanos = 0;
+
+        while(!queue.isEmpty()) {
+            Entry entry = queue.peek();
+
+            // Cancelled or registered on demand
+            if(entry.chunk == null) {
+                queue.poll();
+                continue;
+            }
+
+            long now = System.nanoTime();
+
+            if(registrations > 0 && now >= deadline)
+                break;
+
+            queue.poll();
+            remove(entry.worldId, entry.chunkKey);
+            maxLatencyNanos = Math.max(maxLatencyNanos, now - entry.enqueuedNanos);
+            registration.accept(entry.chunk);
+            entry.chunk = null;
+            registrations++;
+        }
+
+        lastTickRegistrations = registrations;
+        lastTickNanos = System.nanoTime() - start;
+        lastTickMaxLatencyNanos = maxLatencyNanos;
+    }
+
+    private Entry remove(UUID worldId, long chunkKey) {
+        LongObjectHashMap<Entry> entries = worldIdToEntries.get(worldId);
+
+        if(entries == null)
+            return null;
+
+        Entry entry = entries.remove(chunkKey);
+
+        if(entry == null)
+            return null;
+
+        size--;
+
+        if(entries.isEmpty())
+            worldIdToEntries.remove(worldId);
+
+        return entry;
+    }
+
+    private static class Entry {
+        private Chunk chunk;
+        private final UUID worldId;
+        private final long chunkKey;
+        private final long enqueuedNanos;
+
+        private Entry(Chunk chunk, UUID worldId, long chunkKey, long enqueuedNanos) {
+            this.chunk = chunk;
+            this.worldId = worldId;
+            this.chunkKey = chunkKey;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
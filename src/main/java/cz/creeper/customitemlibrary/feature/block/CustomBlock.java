@@ -15,6 +15,7 @@ import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.extent.Extent;
 
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -48,8 +49,10 @@ public interface CustomBlock<T extends CustomBlockDefinition<? extends CustomBlo
         CustomItemServiceImpl service = CustomItemLibrary.getInstance().getService();
         Block block = getBlock();
 
-        service.unregisterBlockAsLoaded(block);
+        // The armor stand is released while the block is still tracked, so the tracked instance is notified too
         service.removeArmorStandsAt(block);
+        service.unregisterBlockAsLoaded(block);
+        invalidateArmorStand();
 
         return location.setBlock(replacement, flag, cause);
     }
@@ -102,6 +105,22 @@ public interface CustomBlock<T extends CustomBlockDefinition<? extends CustomBlo
      */
     boolean isAccessible();
 
+    /**
+     * @return The wrapped {@link ArmorStand}, if it is still loaded
+     */
+    default Optional<ArmorStand> getLoadedArmorStand() {
+        return getBlock().getWorld()
+                .flatMap(extent -> extent.getEntity(getArmorStandId()))
+                .filter(CustomItemServiceImpl::isCustomBlockArmorStand)
+                .map(ArmorStand.class::cast);
+    }
+
+    /**
+     * Called when the wrapped {@link ArmorStand} is released to the pool, destroyed or unloaded,
+     * implementations caching the entity should drop it.
+     */
+    default void invalidateArmorStand() {}
+
     @Override
     default ArmorStand getDataHolder() {
         Entity entity = getExtent().getEntity(getArmorStandId())
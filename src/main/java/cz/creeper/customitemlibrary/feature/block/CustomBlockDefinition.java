@@ -1,13 +1,24 @@
 package cz.creeper.customitemlibrary.feature.block;
 
 import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.CustomItemServiceImpl;
 import cz.creeper.customitemlibrary.data.mutable.CustomBlockData;
 import cz.creeper.customitemlibrary.feature.CustomModelledFeatureDefinition;
 import cz.creeper.customitemlibrary.feature.item.CustomItem;
 import cz.creeper.customitemlibrary.feature.DefinesDurabilityModels;
+import cz.creeper.customitemlibrary.event.CustomBlockPlaceEvent;
 import cz.creeper.customitemlibrary.util.Block;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.block.BlockSnapshot;
 import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.data.Transaction;
 import org.spongepowered.api.data.key.Keys;
 import org.spongepowered.api.entity.EntityTypes;
 import org.spongepowered.api.entity.living.ArmorStand;
@@ -17,7 +28,13 @@ import org.spongepowered.api.world.BlockChangeFlag;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * An immutable definition of a custom block type.
@@ -62,6 +79,25 @@ public interface CustomBlockDefinition<T extends CustomBlock<? extends CustomBlo
 
     void update(T block);
 
+    /**
+     * Blocks of definitions which are not updated are not scheduled for updates at all,
+     * so they cost nothing per tick.
+     *
+     * @return Whether {@link #update(CustomBlock)} does anything
+     */
+    default boolean isUpdated() {
+        return true;
+    }
+
+    /**
+     * Slowly changing blocks may be updated less often to save tick time.
+     *
+     * @return How often {@link #update(CustomBlock)} should be called, in ticks
+     */
+    default int getUpdatePeriodTicks() {
+        return 1;
+    }
+
     /**
      * Constructs a custom block and places it in the world.
      *
@@ -72,14 +108,116 @@ public interface CustomBlockDefinition<T extends CustomBlock<? extends CustomBlo
     default T placeBlock(Block block, BlockChangeFlag flag, Cause cause) {
         Location<World> location = block.getLocation()
                 .orElseThrow(() -> new IllegalStateException("Could not access the location of the provided block."));
-        World world = location.getExtent();
 
         // Remove the previous custom block
         CustomItemLibrary.getInstance().getService().removeArmorStandsAt(block);
 
         location.setBlockType(CustomBlock.BLOCK_TYPE_CUSTOM, flag, cause);
 
-        ArmorStand armorStand = createDummyArmorStand(block);
+        T result = spawnBlock(block, cause);
+
+        CustomItemLibrary.getInstance().getService().registerBlockAsLoaded(result);
+
+        return result;
+    }
+
+    /**
+     * Constructs many custom blocks and places them in the world.
+     * The blocks are processed chunk by chunk, a single {@link CustomBlockPlaceEvent} is posted for each world
+     * and the previous custom blocks of each chunk are removed with a single entity query.
+     * The armor stands are acquired from the armor stand pool, like in {@link #spawnBlock(Block, Cause)}.
+     * Blocks whose transactions are invalidated by a listener are not placed.
+     *
+     * @param blocks The block locations
+     * @param flag How the world should be updated, use {@link BlockChangeFlag#NONE} to skip neighbour physics updates
+     * @param cause The cause
+     * @return The wrapped blocks which were placed
+     */
+    default List<T> placeBlocks(Collection<Block> blocks, BlockChangeFlag flag, Cause cause) {
+        CustomItemServiceImpl service = CustomItemLibrary.getInstance().getService();
+        Map<UUID, LongObjectHashMap<List<Block>>> worldIdToChunks = Maps.newHashMap();
+        Set<Block> distinctBlocks = Sets.newHashSetWithExpectedSize(blocks.size());
+        List<T> result = Lists.newArrayListWithCapacity(blocks.size());
+
+        for(Block block : blocks) {
+            if(!distinctBlocks.add(block))
+                continue;
+
+            LongObjectHashMap<List<Block>> chunks = worldIdToChunks.computeIfAbsent(block.getWorldId(), k -> new LongObjectHashMap<>());
+            Vector3i position = block.getPosition();
+            long chunkKey = BlockIndex.chunkKey(position.getX() >> BlockIndex.CHUNK_SHIFT, position.getZ() >> BlockIndex.CHUNK_SHIFT);
+            List<Block> chunkBlocks = chunks.get(chunkKey);
+
+            if(chunkBlocks == null) {
+                chunkBlocks = Lists.newArrayList();
+                chunks.put(chunkKey, chunkBlocks);
+            }
+
+            chunkBlocks.add(block);
+        }
+
+        BlockState customState = CustomBlock.BLOCK_TYPE_CUSTOM.getDefaultState();
+
+        for(Map.Entry<UUID, LongObjectHashMap<List<Block>>> entry : worldIdToChunks.entrySet()) {
+            World world = Sponge.getServer().getWorld(entry.getKey())
+                    .orElseThrow(() -> new IllegalStateException("Could not access the world of the provided blocks."));
+            LongObjectHashMap<List<Block>> chunks = entry.getValue();
+            Map<Block, Transaction<BlockSnapshot>> transactions = Maps.newLinkedHashMap();
+
+            chunks.forEachValue(chunkBlocks -> chunkBlocks.forEach(block -> transactions.put(block,
+                    new Transaction<>(world.createSnapshot(block.getPosition()),
+                            customState.snapshotFor(world.getLocation(block.getPosition()))))));
+
+            CustomBlockPlaceEvent placeEvent = new CustomBlockPlaceEvent(Lists.newArrayList(transactions.values()), world, cause, false);
+
+            if(Sponge.getEventManager().post(placeEvent))
+                continue;
+
+            chunks.forEach((chunkKey, chunkBlocks) -> {
+                List<Block> placedBlocks = chunkBlocks.stream()
+                        .filter(block -> transactions.get(block).isValid())
+                        .collect(Collectors.toList());
+
+                if(placedBlocks.isEmpty())
+                    return;
+
+                // Remove the previous custom blocks with a single entity query
+                service.removeArmorStandsIn(world, BlockIndex.chunkKeyX(chunkKey), BlockIndex.chunkKeyZ(chunkKey), placedBlocks);
+
+                for(Block block : placedBlocks) {
+                    world.setBlock(block.getPosition(), customState, flag, cause);
+
+                    T customBlock = spawnBlock(block, cause);
+
+                    service.registerBlockAsLoaded(customBlock);
+                    result.add(customBlock);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * Constructs many custom blocks and places them in the world.
+     * All physics updates ({@link BlockChangeFlag#ALL}) are applied.
+     *
+     * @see #placeBlocks(Collection, BlockChangeFlag, Cause)
+     */
+    default List<T> placeBlocks(Collection<Block> blocks, Cause cause) {
+        return placeBlocks(blocks, BlockChangeFlag.ALL, cause);
+    }
+
+    /**
+     * Spawns and customizes the armor stand of a custom block, without changing the block itself.
+     * You probably don't want to use this directly, use {@link #placeBlock(Block, Cause)} instead.
+     *
+     * @param block The block location
+     * @param cause The cause
+     * @return The wrapped block, not yet registered as loaded
+     */
+    default T spawnBlock(Block block, Cause cause) {
+        ArmorStand armorStand = CustomItemLibrary.getInstance().getService().getArmorStandPool().acquire(block, cause);
         Vector3d rotation = Vector3d.ZERO;
 
         if(isRotateHorizontally()) {
@@ -100,12 +238,9 @@ public interface CustomBlockDefinition<T extends CustomBlock<? extends CustomBlo
         armorStand.offer(new CustomBlockData());
         armorStand.setRotation(rotation);
 
-        world.spawnEntity(armorStand, cause);
-
         T result = customizeBlock(block, armorStand, cause);
 
         result.setModel(getDefaultModel());
-        CustomItemLibrary.getInstance().getService().registerBlockAsLoaded(result);
 
         return result;
     }
@@ -124,8 +259,7 @@ public interface CustomBlockDefinition<T extends CustomBlock<? extends CustomBlo
     static ArmorStand createDummyArmorStand(Block block) {
         World world = block.getWorld()
                 .orElseThrow(() -> new IllegalStateException("Could not access the world this block resides in."));
-        Vector3d armorStandPosition = block.getPosition().toDouble().add(Vector3d.ONE.mul(0.5));
-        ArmorStand armorStand = (ArmorStand) world.createEntity(EntityTypes.ARMOR_STAND, armorStandPosition);
+        ArmorStand armorStand = (ArmorStand) world.createEntity(EntityTypes.ARMOR_STAND, getArmorStandPosition(block));
 
         armorStand.offer(Keys.IS_SILENT, true);
         armorStand.offer(Keys.INVISIBLE, true);
@@ -139,6 +273,10 @@ public interface CustomBlockDefinition<T extends CustomBlock<? extends CustomBlo
         return armorStand;
     }
 
+    static Vector3d getArmorStandPosition(Block block) {
+        return block.getPosition().toDouble().add(Vector3d.ONE.mul(0.5));
+    }
+
     /**
      * Wraps the {@link Block} in a helper class extending {@link CustomItem},
      * if the {@link Block} is representing an actual custom block
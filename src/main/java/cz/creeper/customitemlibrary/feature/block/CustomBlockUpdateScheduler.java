@@ -0,0 +1,204 @@
+package cz.creeper.customitemlibrary.feature.block;
+
+import com.google.common.base.Preconditions;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.util.Block;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Calls {@link CustomBlock#update()} on the scheduled blocks within a time budget per tick.
+ * Blocks are bucketed by the tick they are due in, so a tick only visits the blocks that are due.
+ * Due blocks which do not fit in the budget are carried over to the next tick, in order.
+ * Each block is updated at most once every {@link CustomBlockDefinition#getUpdatePeriodTicks()} ticks.
+ */
+@ToString(of = {"budgetNanos", "tick", "lastSweepLateUpdates", "lastSweepMaxLatenessTicks"})
+public class CustomBlockUpdateScheduler {
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000;
+    // Updates delayed by more ticks than this are reported
+    public static final int LATENESS_WARNING_TICKS = 20;
+    // The lateness statistics are collected over sweeps of this many ticks
+    public static final int SWEEP_TICKS = 200;
+    private final BlockIndex<Entry> index = new BlockIndex<>();
+    // Due tick -> entries due in that tick
+    private final LongObjectHashMap<ArrayDeque<Entry>> dueTickToEntries = new LongObjectHashMap<>();
+    private final Consumer<CustomBlock<? extends CustomBlockDefinition>> onInaccessible;
+    // Entries that are due, but were not updated yet
+    private ArrayDeque<Entry> pending = new ArrayDeque<>();
+    @Getter
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    @Getter
+    private long tick;
+    private int sweepLateUpdates;
+    private int sweepMaxLatenessTicks;
+    @Getter
+    private int lastSweepLateUpdates;
+    @Getter
+    private int lastSweepMaxLatenessTicks;
+    @Getter
+    private int lastTickUpdates;
+    @Getter
+    private long lastTickNanos;
+
+    /**
+     * @param onInaccessible Called with blocks that are no longer accessible, they are unscheduled afterwards
+     */
+    public CustomBlockUpdateScheduler(Consumer<CustomBlock<? extends CustomBlockDefinition>> onInaccessible) {
+        this.onInaccessible = onInaccessible;
+    }
+
+    /**
+     * @param budgetNanos The maximum time spent updating blocks each tick, at least one due block is always visited
+     */
+    public void setBudgetNanos(long budgetNanos) {
+        Preconditions.checkArgument(budgetNanos >= 0, "The budget must not be negative.");
+
+        this.budgetNanos = budgetNanos;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void schedule(CustomBlock<? extends CustomBlockDefinition> customBlock) {
+        int period = Math.max(1, customBlock.getDefinition().getUpdatePeriodTicks());
+        Entry entry = new Entry(customBlock, period);
+        // Spread blocks with longer periods across ticks
+        long dueTick = tick + 1 + index.size() % period;
+
+        entry.lastUpdateTick = dueTick - period;
+
+        Entry previous = index.put(customBlock.getBlock(), entry);
+
+        if(previous != null)
+            previous.block = null;
+
+        enqueue(entry, dueTick);
+    }
+
+    public boolean unschedule(Block block) {
+        Entry entry = index.remove(block);
+
+        if(entry == null)
+            return false;
+
+        entry.block = null;
+        return true;
+    }
+
+    public void unscheduleChunk(UUID worldId, int chunkX, int chunkZ) {
+        index.removeChunk(worldId, chunkX, chunkZ, entry -> entry.block = null);
+    }
+
+    public void unscheduleWorld(UUID worldId) {
+        index.removeWorld(worldId, entry -> entry.block = null);
+    }
+
+    /**
+     * Should be called once every tick.
+     * Unscheduled entries are dropped lazily, once they are due.
+     */
+    public void tick() {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int updates = 0;
+        int visited = 0;
+
+        tick++;
+
+        ArrayDeque<Entry> due = dueTickToEntries.remove(tick);
+
+        if(due != null) {
+            if(pending.isEmpty())
+                pending = due;
+            else
+                pending.addAll(due);
+        }
+
+        while(!pending.isEmpty()) {
+            if(visited > 0 && System.nanoTime() >= deadline)
+                break;
+
+            Entry entry = pending.pollFirst();
+            visited++;
+
+            if(entry.block == null)
+                continue;
+
+            update(entry, tick - entry.lastUpdateTick);
+            updates++;
+
+            if(entry.block != null)
+                enqueue(entry, tick + entry.period);
+        }
+
+        if(tick % SWEEP_TICKS == 0)
+            finishSweep();
+
+        lastTickUpdates = updates;
+        lastTickNanos = System.nanoTime() - start;
+    }
+
+    private void enqueue(Entry entry, long dueTick) {
+        ArrayDeque<Entry> entries = dueTickToEntries.get(dueTick);
+
+        if(entries == null) {
+            entries = new ArrayDeque<>();
+            dueTickToEntries.put(dueTick, entries);
+        }
+
+        entries.addLast(entry);
+    }
+
+    private void update(Entry entry, long sinceLastUpdate) {
+        CustomBlock<? extends CustomBlockDefinition> customBlock = entry.block;
+        int lateness = (int) Math.min(Integer.MAX_VALUE, sinceLastUpdate - entry.period);
+
+        entry.lastUpdateTick = tick;
+
+        if(lateness > 0) {
+            sweepLateUpdates++;
+            sweepMaxLatenessTicks = Math.max(sweepMaxLatenessTicks, lateness);
+        }
+
+        if(customBlock.isAccessible()) {
+            customBlock.update();
+        } else {
+            onInaccessible.accept(customBlock);
+
+            if(entry.block == customBlock)
+                unschedule(customBlock.getBlock());
+        }
+    }
+
+    private void finishSweep() {
+        lastSweepLateUpdates = sweepLateUpdates;
+        lastSweepMaxLatenessTicks = sweepMaxLatenessTicks;
+
+        if(sweepMaxLatenessTicks > LATENESS_WARNING_TICKS) {
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn(sweepLateUpdates + " custom block updates fell behind their update period, by up to "
+                            + sweepMaxLatenessTicks + " ticks. Consider increasing the update budget.");
+        }
+
+        sweepLateUpdates = 0;
+        sweepMaxLatenessTicks = 0;
+    }
+
+    private static class Entry {
+        private CustomBlock<? extends CustomBlockDefinition> block;
+        private final int period;
+        private long lastUpdateTick;
+
+        private Entry(CustomBlock<? extends CustomBlockDefinition> block, int period) {
+            this.block = block;
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package cz.creeper.customitemlibrary.feature.block.schematic;
+
+import com.google.common.base.Preconditions;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import lombok.Getter;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Work split into small steps, so it may be spread across ticks within a time budget per tick.
+ */
+public abstract class AbstractSchematicTask<T extends AbstractSchematicTask<T>> implements Closeable {
+    public static final long DEFAULT_BUDGET_NANOS = 5_000_000;
+    @Getter
+    private boolean done;
+    private Task task;
+
+    /**
+     * Performs a small, bounded amount of work.
+     *
+     * @return {@code true}, if there is no more work left
+     */
+    protected abstract boolean step() throws IOException;
+
+    /**
+     * Performs steps until the budget runs out, at least one step is always performed.
+     * The task is closed once it is done, or when a step fails.
+     *
+     * @return {@code true}, if there is no more work left
+     */
+    public boolean run(long budgetNanos) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            do {
+                if(step()) {
+                    done = true;
+                    break;
+                }
+            } while(System.nanoTime() - start < budgetNanos);
+
+            failed = false;
+        } finally {
+            if(failed)
+                closeQuietly();
+        }
+
+        if(done)
+            close();
+
+        return done;
+    }
+
+    /**
+     * Performs all steps right away.
+     */
+    public void runFully() throws IOException {
+        run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Spreads the work across ticks, spending at most the budget each tick.
+     *
+     * @return A future completed when all of the work is done
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<T> start(long budgetNanos) {
+        Preconditions.checkState(task == null, "The task has already been started.");
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        task = Sponge.getScheduler().createTaskBuilder()
+                .name("Custom block schematic task")
+                .intervalTicks(1)
+                .execute(currentTask -> {
+                    try {
+                        if(run(budgetNanos)) {
+                            currentTask.cancel();
+                            future.complete((T) this);
+                        }
+                    } catch(IOException | RuntimeException e) {
+                        currentTask.cancel();
+                        future.completeExceptionally(e);
+                    }
+                })
+                .submit(CustomItemLibrary.getInstance());
+
+        return future;
+    }
+
+    public CompletableFuture<T> start() {
+        return start(DEFAULT_BUDGET_NANOS);
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cz.creeper.customitemlibrary.feature.block.schematic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The binary format of custom block schematics, a stream of tagged records:
+ *
+ * <pre>
+ * int  magic
+ * int  version
+ * varint sizeX, sizeY, sizeZ
+ * records:
+ *   TAG_STRING  UTF string                      appended to the string table
+ *   TAG_BLOCK   varint x, y, z                  position relative to the minimum corner
+ *               varint definitionId, model      indices into the string table
+ *               float yaw                       rotation of the armor stand
+ *   TAG_END
+ * </pre>
+ *
+ * Strings are written once, the first time they are needed, so both sides only keep
+ * the distinct definition ids and models in memory, regardless of the size of the region.
+ */
+public final class CustomBlockSchematic {
+    public static final int MAGIC = 0x43494253;  // "CIBS"
+    public static final int VERSION = 1;
+    public static final int TAG_END = 0;
+    public static final int TAG_STRING = 1;
+    public static final int TAG_BLOCK = 2;
+
+    private CustomBlockSchematic() {}
+
+    public static void writeVarInt(DataOutput output, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+
+        for(int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Malformed variable-length integer.");
+    }
+}
@@ -0,0 +1,141 @@
+package cz.creeper.customitemlibrary.feature.block.schematic;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.Maps;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.feature.block.CustomBlock;
+import cz.creeper.customitemlibrary.feature.block.CustomBlockDefinition;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.Identifier;
+import lombok.Getter;
+import org.spongepowered.api.world.Chunk;
+import org.spongepowered.api.world.World;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the custom blocks of a region into a {@link CustomBlockSchematic} stream, one chunk per step.
+ * Chunks which are not loaded are loaded for the duration of the step and unloaded afterwards.
+ */
+public class CustomBlockSchematicExporter extends AbstractSchematicTask<CustomBlockSchematicExporter> {
+    private final World world;
+    private final Vector3i min;
+    private final Vector3i max;
+    private final DataOutputStream output;
+    private final Map<String, Integer> stringIndices = Maps.newHashMap();
+    private final int minChunkX;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+    private int chunkX;
+    private int chunkZ;
+    private boolean headerWritten;
+    @Getter
+    private int exportedBlocks;
+
+    /**
+     * @param world The world to export from
+     * @param corner One corner of the region, inclusive
+     * @param oppositeCorner The opposite corner of the region, inclusive
+     * @param output The stream to write to, closed once the export is done
+     */
+    public CustomBlockSchematicExporter(World world, Vector3i corner, Vector3i oppositeCorner, OutputStream output) {
+        this.world = world;
+        this.min = corner.min(oppositeCorner);
+        this.max = corner.max(oppositeCorner);
+        this.output = new DataOutputStream(new BufferedOutputStream(output));
+        this.minChunkX = min.getX() >> BlockIndex.CHUNK_SHIFT;
+        this.maxChunkX = max.getX() >> BlockIndex.CHUNK_SHIFT;
+        this.maxChunkZ = max.getZ() >> BlockIndex.CHUNK_SHIFT;
+        this.chunkX = minChunkX;
+        this.chunkZ = min.getZ() >> BlockIndex.CHUNK_SHIFT;
+    }
+
+    @Override
+    protected boolean step() throws IOException {
+        if(!headerWritten) {
+            Vector3i size = max.sub(min).add(Vector3i.ONE);
+
+            output.writeInt(CustomBlockSchematic.MAGIC);
+            output.writeInt(CustomBlockSchematic.VERSION);
+            CustomBlockSchematic.writeVarInt(output, size.getX());
+            CustomBlockSchematic.writeVarInt(output, size.getY());
+            CustomBlockSchematic.writeVarInt(output, size.getZ());
+            headerWritten = true;
+        }
+
+        if(chunkZ > maxChunkZ) {
+            output.writeByte(CustomBlockSchematic.TAG_END);
+            return true;
+        }
+
+        exportChunk(chunkX, chunkZ);
+
+        if(++chunkX > maxChunkX) {
+            chunkX = minChunkX;
+            chunkZ++;
+        }
+
+        return false;
+    }
+
+    private void exportChunk(int chunkX, int chunkZ) throws IOException {
+        boolean loaded = world.getChunk(chunkX, 0, chunkZ).isPresent();
+        Optional<Chunk> chunk = loaded ? world.getChunk(chunkX, 0, chunkZ) : world.loadChunk(chunkX, 0, chunkZ, false);
+
+        // Never generated
+        if(!chunk.isPresent())
+            return;
+
+        Vector3i chunkMin = new Vector3i(chunkX << BlockIndex.CHUNK_SHIFT, min.getY(), chunkZ << BlockIndex.CHUNK_SHIFT).max(min);
+        Vector3i chunkMax = new Vector3i((chunkX << BlockIndex.CHUNK_SHIFT) + BlockIndex.CHUNK_MASK, max.getY(),
+                (chunkZ << BlockIndex.CHUNK_SHIFT) + BlockIndex.CHUNK_MASK).min(max);
+
+        for(CustomBlock<? extends CustomBlockDefinition> customBlock : CustomItemLibrary.getInstance().getService()
+                .getLoadedBlocks(world.getUniqueId(), chunkMin, chunkMax)) {
+            exportBlock(customBlock);
+        }
+
+        if(!loaded)
+            chunk.get().unloadChunk();
+    }
+
+    private void exportBlock(CustomBlock<? extends CustomBlockDefinition> customBlock) throws IOException {
+        CustomBlockDefinition definition = customBlock.getDefinition();
+        int definitionIndex = getStringIndex(Identifier.toString(definition.getPluginContainer().getId(), definition.getTypeId()));
+        int modelIndex = getStringIndex(customBlock.getModel());
+        Vector3i position = customBlock.getBlock().getPosition().sub(min);
+
+        output.writeByte(CustomBlockSchematic.TAG_BLOCK);
+        CustomBlockSchematic.writeVarInt(output, position.getX());
+        CustomBlockSchematic.writeVarInt(output, position.getY());
+        CustomBlockSchematic.writeVarInt(output, position.getZ());
+        CustomBlockSchematic.writeVarInt(output, definitionIndex);
+        CustomBlockSchematic.writeVarInt(output, modelIndex);
+        output.writeFloat((float) customBlock.getDataHolder().getRotation().getY());
+        exportedBlocks++;
+    }
+
+    private int getStringIndex(String string) throws IOException {
+        Integer index = stringIndices.get(string);
+
+        if(index == null) {
+            index = stringIndices.size();
+
+            output.writeByte(CustomBlockSchematic.TAG_STRING);
+            output.writeUTF(string);
+            stringIndices.put(string, index);
+        }
+
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
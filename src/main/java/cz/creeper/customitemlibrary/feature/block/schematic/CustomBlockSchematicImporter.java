@@ -0,0 +1,154 @@
+package cz.creeper.customitemlibrary.feature.block.schematic;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.feature.block.CustomBlock;
+import cz.creeper.customitemlibrary.feature.block.CustomBlockDefinition;
+import cz.creeper.customitemlibrary.util.Block;
+import cz.creeper.customitemlibrary.util.Identifier;
+import lombok.Getter;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.world.BlockChangeFlag;
+import org.spongepowered.api.world.World;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads a {@link CustomBlockSchematic} stream and places the custom blocks using
+ * {@link CustomBlockDefinition#placeBlocks(java.util.Collection, BlockChangeFlag, Cause)}.
+ * Each step places a bounded batch of blocks, so the import can be spread across ticks.
+ */
+public class CustomBlockSchematicImporter extends AbstractSchematicTask<CustomBlockSchematicImporter> {
+    public static final int BATCH_SIZE = 256;
+    private final World world;
+    private final Vector3i origin;
+    private final BlockChangeFlag flag;
+    private final Cause cause;
+    private final DataInputStream input;
+    private final List<String> strings = Lists.newArrayList();
+    @Getter
+    private Vector3i size;
+    @Getter
+    private int importedBlocks;
+    @Getter
+    private int skippedBlocks;
+
+    /**
+     * @param input The stream to read from, closed once the import is done
+     * @param world The world to place the blocks in
+     * @param origin Where to place the minimum corner of the exported region
+     * @param flag How the world should be updated, {@link BlockChangeFlag#NONE} skips neighbour physics updates
+     * @param cause The cause
+     */
+    public CustomBlockSchematicImporter(InputStream input, World world, Vector3i origin, BlockChangeFlag flag, Cause cause) {
+        this.input = new DataInputStream(new BufferedInputStream(input));
+        this.world = world;
+        this.origin = origin;
+        this.flag = flag;
+        this.cause = cause;
+    }
+
+    @Override
+    protected boolean step() throws IOException {
+        if(size == null) {
+            if(input.readInt() != CustomBlockSchematic.MAGIC)
+                throw new IOException("Not a custom block schematic.");
+
+            int version = input.readInt();
+
+            if(version != CustomBlockSchematic.VERSION)
+                throw new IOException("Unsupported custom block schematic version: " + version);
+
+            size = new Vector3i(CustomBlockSchematic.readVarInt(input), CustomBlockSchematic.readVarInt(input),
+                    CustomBlockSchematic.readVarInt(input));
+        }
+
+        Map<CustomBlockDefinition<?>, List<Block>> definitionsToBlocks = Maps.newHashMap();
+        Map<Block, Entry> blocksToEntries = Maps.newHashMap();
+        boolean end = false;
+
+        while(blocksToEntries.size() < BATCH_SIZE) {
+            int tag = input.readUnsignedByte();
+
+            if(tag == CustomBlockSchematic.TAG_END) {
+                end = true;
+                break;
+            } else if(tag == CustomBlockSchematic.TAG_STRING) {
+                strings.add(input.readUTF());
+            } else if(tag == CustomBlockSchematic.TAG_BLOCK) {
+                Vector3i position = origin.add(CustomBlockSchematic.readVarInt(input), CustomBlockSchematic.readVarInt(input),
+                        CustomBlockSchematic.readVarInt(input));
+                String definitionId = getString(CustomBlockSchematic.readVarInt(input));
+                String model = getString(CustomBlockSchematic.readVarInt(input));
+                float yaw = input.readFloat();
+                Optional<CustomBlockDefinition<? extends CustomBlock>> definition = CustomItemLibrary.getInstance().getService()
+                        .getBlockDefinition(Identifier.getNamespaceFromIdString(definitionId), Identifier.getValueFromIdString(definitionId));
+
+                if(!definition.isPresent()) {
+                    skippedBlocks++;
+                    continue;
+                }
+
+                Block block = Block.of(world, position);
+
+                definitionsToBlocks.computeIfAbsent(definition.get(), k -> Lists.newArrayList()).add(block);
+                blocksToEntries.put(block, new Entry(model, yaw));
+            } else {
+                throw new IOException("Invalid custom block schematic record: " + tag);
+            }
+        }
+
+        int[] placedBlocks = { 0 };
+
+        definitionsToBlocks.forEach((definition, blocks) -> {
+            for(CustomBlock<?> customBlock : definition.placeBlocks(blocks, flag, cause)) {
+                Entry entry = blocksToEntries.get(customBlock.getBlock());
+
+                if(!entry.model.equals(definition.getDefaultModel()) && definition.getModels().contains(entry.model))
+                    customBlock.setModel(entry.model);
+
+                // Always set, the placed block would otherwise keep the rotation it was spawned with
+                customBlock.getDataHolder().setRotation(new Vector3d(0, entry.yaw, 0));
+
+                placedBlocks[0]++;
+            }
+        });
+
+        importedBlocks += placedBlocks[0];
+        // Blocks rejected by place event listeners
+        skippedBlocks += blocksToEntries.size() - placedBlocks[0];
+
+        return end;
+    }
+
+    private String getString(int index) throws IOException {
+        if(index < 0 || index >= strings.size())
+            throw new IOException("Invalid custom block schematic string index: " + index);
+
+        return strings.get(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private static class Entry {
+        private final String model;
+        private final float yaw;
+
+        private Entry(String model, float yaw) {
+            this.model = model;
+            this.yaw = yaw;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cz.creeper.customitemlibrary.feature.block.simple;
+
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.managers.ItemCategoryManager;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.spongepowered.api.item.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+
+/**
+ * Accepts the items of an item category. The bit of the category is resolved once per loaded
+ * {@link ItemCategoryManager}, so a check is a single map read and a bit test.
+ */
+@RequiredArgsConstructor
+class CategoryToolPredicate implements CorrectToolPredicate {
+    @Getter
+    @NonNull
+    private final String category;
+    private volatile Resolution resolution;
+
+    @Override
+    public boolean isCorrectTool(@Nullable ItemStack itemInHand) {
+        if(itemInHand == null)
+            return false;
+
+        ItemCategoryManager manager = CustomItemLibrary.getInstance().getItemCategoryManager();
+        Resolution resolution = resolve(manager);
+
+        return (manager.getCategories(itemInHand.getItem()) & resolution.mask) != 0;
+    }
+
+    /**
+     * Resolves the bit of the category, logging an error if the category is not configured.
+     */
+    Resolution resolve(ItemCategoryManager manager) {
+        Resolution resolution = this.resolution;
+
+        if(resolution == null || resolution.manager != manager) {
+            long mask = manager.getCategoryMask(category);
+
+            if(mask == 0) {
+                CustomItemLibrary.getInstance().getLogger()
+                        .error("Unknown item category '" + category + "', no tool will be considered correct."
+                                + " Known categories: " + manager.getCategoryNames());
+            }
+
+            resolution = new Resolution(manager, mask);
+            this.resolution = resolution;
+        }
+
+        return resolution;
+    }
+
+    @RequiredArgsConstructor
+    private static class Resolution {
+        private final ItemCategoryManager manager;
+        private final long mask;
+    }
+}
@@ -1,12 +1,15 @@
 package cz.creeper.customitemlibrary.feature.block.simple;
 
+import cz.creeper.customitemlibrary.managers.ItemCategoryManager;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.data.property.item.HarvestingProperty;
 import org.spongepowered.api.data.type.HandTypes;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.inventory.ItemStack;
 
 import javax.annotation.Nullable;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public interface CorrectToolPredicate {
     /**
@@ -15,12 +18,39 @@ public interface CorrectToolPredicate {
      */
     boolean isCorrectTool(@Nullable ItemStack itemInHand);
 
+    /**
+     * The {@link HarvestingProperty} only depends on the {@link ItemType}, so the result is cached per item type.
+     */
     static CorrectToolPredicate of(BlockType harvestingType) {
-        return itemInHand -> Optional.ofNullable(itemInHand)
-                .flatMap(itemStack -> itemStack.getProperty(HarvestingProperty.class))
-                .map(HarvestingProperty::getValue)
-                .map(harvestingTypes -> harvestingTypes.contains(harvestingType))
-                .orElse(false);
+        Map<ItemType, Boolean> itemTypeToCorrectTool = new ConcurrentHashMap<>();
+
+        return itemInHand -> {
+            if(itemInHand == null)
+                return false;
+
+            ItemType itemType = itemInHand.getItem();
+            Boolean correctTool = itemTypeToCorrectTool.get(itemType);
+
+            if(correctTool == null) {
+                correctTool = itemInHand.getProperty(HarvestingProperty.class)
+                        .map(HarvestingProperty::getValue)
+                        .map(harvestingTypes -> harvestingTypes.contains(harvestingType))
+                        .orElse(false);
+
+                itemTypeToCorrectTool.putIfAbsent(itemType, correctTool);
+            }
+
+            return correctTool;
+        };
+    }
+
+    /**
+     * @param category The item category, as configured in the {@code item_categories} config node
+     * @return A predicate accepting the items in the category, see {@link ItemCategoryManager};
+     *         unknown categories are reported when the blocks are prepared
+     */
+    static CorrectToolPredicate ofCategory(String category) {
+        return new CategoryToolPredicate(category);
     }
 
     static CorrectToolPredicate any() {
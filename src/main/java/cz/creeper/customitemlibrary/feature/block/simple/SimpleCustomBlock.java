@@ -1,5 +1,6 @@
 package cz.creeper.customitemlibrary.feature.block.simple;
 
+import com.google.common.collect.ImmutableList;
 import cz.creeper.customitemlibrary.feature.DurabilityRegistry;
 import cz.creeper.customitemlibrary.feature.block.AbstractCustomBlock;
 import cz.creeper.customitemlibrary.util.Block;
@@ -11,6 +12,7 @@ import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.plugin.PluginContainer;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +20,9 @@ import java.util.UUID;
 @Getter
 public class SimpleCustomBlock extends AbstractCustomBlock<SimpleCustomBlockDefinition> {
     public static final ItemType HELMET_ITEM_TYPE = ItemTypes.DIAMOND_SHOVEL;
+    // Once the durabilities of an item type are used up, models spill over to the next one
+    public static final List<ItemType> HELMET_ITEM_TYPES = ImmutableList.of(HELMET_ITEM_TYPE, ItemTypes.DIAMOND_PICKAXE,
+            ItemTypes.DIAMOND_AXE, ItemTypes.DIAMOND_HOE, ItemTypes.DIAMOND_SWORD);
 
     public SimpleCustomBlock(SimpleCustomBlockDefinition definition, Block block, UUID armorStandId) {
         super(definition, block, armorStandId);
@@ -28,7 +33,7 @@ public class SimpleCustomBlock extends AbstractCustomBlock<SimpleCustomBlockDefi
     }
 
     public ItemStack createHelmet(String model) {
-        return DurabilityRegistry.getInstance().createItemUnsafe(HELMET_ITEM_TYPE, getDefinition().getPluginContainer(), model);
+        return DurabilityRegistry.getInstance().createItemUnsafe(getDefinition().getPluginContainer(), model);
     }
 
     @Override
@@ -15,6 +15,7 @@ import cz.creeper.customitemlibrary.feature.block.AbstractCustomBlockDefinition;
 import cz.creeper.customitemlibrary.feature.item.CustomItem;
 import cz.creeper.customitemlibrary.util.Block;
 import cz.creeper.customitemlibrary.util.Util;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -55,6 +56,12 @@ public class SimpleCustomBlockDefinition extends AbstractCustomBlockDefinition<S
     @NonNull
     private final CorrectToolPredicate correctToolPredicate;
 
+    /**
+     * The item category of the tools used to break the block, if it was declared.
+     */
+    @Getter(AccessLevel.NONE)
+    private final String requiredToolCategory;
+
     /**
      * The duration this block takes to break.
      */
@@ -67,12 +74,13 @@ public class SimpleCustomBlockDefinition extends AbstractCustomBlockDefinition<S
     private final DropProvider dropProvider;
 
     private SimpleCustomBlockDefinition(PluginContainer pluginContainer, String typeId,
-                                        @NonNull CorrectToolPredicate correctToolPredicate, double hardness,
+                                        @NonNull CorrectToolPredicate correctToolPredicate, String requiredToolCategory, double hardness,
                                         @NonNull BlockState effectState, @NonNull DropProvider dropProvider,
                                         String defaultModel, Iterable<String> additionalModels,
                                         Iterable<String> additionalAssets, boolean rotateHorizontally,
-                                        boolean generateDamageIndicatorModels, Consumer<SimpleCustomBlock> onUpdate) {
-        super(pluginContainer, typeId, defaultModel, additionalModels, effectState, rotateHorizontally, generateDamageIndicatorModels, onUpdate);
+                                        boolean generateDamageIndicatorModels, Consumer<SimpleCustomBlock> onUpdate,
+                                        int updatePeriodTicks) {
+        super(pluginContainer, typeId, defaultModel, additionalModels, effectState, rotateHorizontally, generateDamageIndicatorModels, onUpdate, updatePeriodTicks);
 
         this.assets = ImmutableSet.<String>builder()
                 .addAll(getModels().stream()
@@ -82,6 +90,7 @@ public class SimpleCustomBlockDefinition extends AbstractCustomBlockDefinition<S
                         .collect(Collectors.toSet()))
                 .build();
         this.correctToolPredicate = correctToolPredicate;
+        this.requiredToolCategory = requiredToolCategory;
         this.hardness = hardness;
         this.dropProvider = dropProvider;
     }
@@ -89,20 +98,26 @@ public class SimpleCustomBlockDefinition extends AbstractCustomBlockDefinition<S
     @Builder
     public static SimpleCustomBlockDefinition create(Object plugin, String typeId,
                                                      CorrectToolPredicate correctToolPredicate,
+                                                     String requiredToolCategory,
                                                      Double hardness, BlockState effectState,
                                                      DropProvider dropProvider, String defaultModel,
                                                      @Singular Iterable<String> additionalModels,
                                                      @Singular Iterable<String> additionalAssets,
                                                      boolean rotateHorizontally,
                                                      Boolean generateDamageIndicatorModels,
-                                                     Consumer<SimpleCustomBlock> onUpdate) {
+                                                     Consumer<SimpleCustomBlock> onUpdate,
+                                                     Integer updatePeriodTicks) {
         PluginContainer pluginContainer = Sponge.getPluginManager().fromInstance(plugin)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid plugin instance."));
         if(effectState == null)
             effectState = BlockTypes.STONE.getDefaultState();
 
+        Preconditions.checkArgument(correctToolPredicate == null || requiredToolCategory == null,
+                "Specify either the correct tool predicate or the required tool category, not both.");
+
         if(correctToolPredicate == null)
-            correctToolPredicate = CorrectToolPredicate.of(effectState.getType());
+            correctToolPredicate = requiredToolCategory != null ? CorrectToolPredicate.ofCategory(requiredToolCategory)
+                    : CorrectToolPredicate.of(effectState.getType());
 
         if(hardness == null)
             hardness = effectState
@@ -123,7 +138,14 @@ public class SimpleCustomBlockDefinition extends AbstractCustomBlockDefinition<S
         if(generateDamageIndicatorModels == null)
             generateDamageIndicatorModels = false;
 
-        return new SimpleCustomBlockDefinition(pluginContainer, typeId, correctToolPredicate, hardness, effectState, dropProvider, defaultModel, additionalModels, additionalAssets, rotateHorizontally, generateDamageIndicatorModels, onUpdate);
+        if(updatePeriodTicks == null)
+            updatePeriodTicks = 1;
+
+        return new SimpleCustomBlockDefinition(pluginContainer, typeId, correctToolPredicate, requiredToolCategory, hardness, effectState, dropProvider, defaultModel, additionalModels, additionalAssets, rotateHorizontally, generateDamageIndicatorModels, onUpdate, updatePeriodTicks);
+    }
+
+    public Optional<String> getRequiredToolCategory() {
+        return Optional.ofNullable(requiredToolCategory);
     }
 
     @Override
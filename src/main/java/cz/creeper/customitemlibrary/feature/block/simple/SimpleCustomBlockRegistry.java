@@ -1,6 +1,8 @@
 package cz.creeper.customitemlibrary.feature.block.simple;
 
 import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -18,8 +20,12 @@ import cz.creeper.customitemlibrary.event.MiningStopEvent;
 import cz.creeper.customitemlibrary.feature.AssetId;
 import cz.creeper.customitemlibrary.feature.CustomFeatureRegistry;
 import cz.creeper.customitemlibrary.feature.DurabilityRegistry;
+import cz.creeper.customitemlibrary.feature.block.CustomBlock;
 import cz.creeper.customitemlibrary.feature.block.CustomBlockDefinition;
+import cz.creeper.customitemlibrary.managers.ItemCategoryManager;
 import cz.creeper.customitemlibrary.managers.MiningManager;
+import cz.creeper.customitemlibrary.util.Block;
+import cz.creeper.customitemlibrary.util.Identifier;
 import lombok.AccessLevel;
 import lombok.Getter;
 import org.spongepowered.api.Sponge;
@@ -29,6 +35,8 @@ import org.spongepowered.api.data.type.HandTypes;
 import org.spongepowered.api.effect.particle.ParticleEffect;
 import org.spongepowered.api.effect.particle.ParticleOptions;
 import org.spongepowered.api.effect.particle.ParticleTypes;
+import org.spongepowered.api.effect.potion.PotionEffect;
+import org.spongepowered.api.effect.potion.PotionEffectTypes;
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntityTypes;
 import org.spongepowered.api.entity.Item;
@@ -38,11 +46,13 @@ import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.cause.Cause;
 import org.spongepowered.api.event.cause.entity.spawn.EntitySpawnCause;
+import org.spongepowered.api.event.cause.entity.spawn.SpawnCause;
 import org.spongepowered.api.event.cause.entity.spawn.SpawnTypes;
 import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.item.inventory.ItemStackSnapshot;
+import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.extent.Extent;
@@ -57,6 +67,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BinaryOperator;
@@ -65,7 +76,10 @@ import java.util.stream.Stream;
 
 public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCustomBlock, SimpleCustomBlockDefinition> {
     public static final ItemType DAMAGE_INDICATOR_ITEM_TYPE = ItemTypes.DIAMOND_CHESTPLATE;
+    public static final List<ItemType> DAMAGE_INDICATOR_ITEM_TYPES = ImmutableList.of(DAMAGE_INDICATOR_ITEM_TYPE,
+            ItemTypes.IRON_CHESTPLATE, ItemTypes.GOLDEN_CHESTPLATE, ItemTypes.CHAINMAIL_CHESTPLATE);
     public static final String DAMAGE_INDICATOR_SUFFIX = "_damage_indicator_%d";
+    public static final int DAMAGE_INDICATOR_STAGES = 10;
     public static final Vector3d TRANSLATION_DEFAULT = Vector3d.ZERO;
     public static final Vector3d TRANSLATION_VECTOR = new Vector3d(0, -43.225, 0);
     public static final BinaryOperator<Vector3d> TRANSLATION_OPERATOR = Vector3d::add;
@@ -76,18 +90,38 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
 
     @Getter(value = AccessLevel.PRIVATE, lazy = true)
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private ItemStackSnapshot[] defaultDamageIndicators;
+    private final Map<Identifier, ItemStackSnapshot[]> modelIdToDamageIndicators = Maps.newHashMap();
 
     @Override
     public void prepare() {
         registerDefaultCubicDamageIndicatorModels();
+        createDamageIndicatorSnapshots();
+        resolveToolCategories();
+        CustomItemLibrary.getInstance().getMiningManager().addProgressHandler(this::onMiningProgress);
+    }
+
+    /**
+     * Reports unknown required tool categories on startup rather than on the first mining attempt.
+     */
+    private void resolveToolCategories() {
+        ItemCategoryManager itemCategoryManager = CustomItemLibrary.getInstance().getItemCategoryManager();
+
+        CustomItemLibrary.getInstance().getService().getBlockDefinitions().stream()
+                .filter(SimpleCustomBlockDefinition.class::isInstance)
+                .map(SimpleCustomBlockDefinition.class::cast)
+                .map(SimpleCustomBlockDefinition::getCorrectToolPredicate)
+                .filter(CategoryToolPredicate.class::isInstance)
+                .map(CategoryToolPredicate.class::cast)
+                .forEach(predicate -> predicate.resolve(itemCategoryManager));
     }
 
     private void registerDefaultCubicDamageIndicatorModels() {
-        for(int stage = 0; stage < 10; stage++) {
+        for(int stage = 0; stage < DAMAGE_INDICATOR_STAGES; stage++) {
             String model = getDamageIndicatorModel(null, stage);
 
             DurabilityRegistry.getInstance().register(
-                    DAMAGE_INDICATOR_ITEM_TYPE,
+                    DAMAGE_INDICATOR_ITEM_TYPES,
                     CustomItemLibrary.getInstance().getPluginContainer(),
                     Collections.singleton(model),
                     CustomBlockDefinition.MODEL_DIRECTORY_NAME
@@ -95,11 +129,54 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
         }
     }
 
+    private void createDamageIndicatorSnapshots() {
+        defaultDamageIndicators = createDamageIndicatorSnapshots(CustomItemLibrary.getInstance().getPluginContainer(), null);
+
+        CustomItemLibrary.getInstance().getService().getBlockDefinitions().stream()
+                .filter(SimpleCustomBlockDefinition.class::isInstance)
+                .map(SimpleCustomBlockDefinition.class::cast)
+                .filter(SimpleCustomBlockDefinition::isGenerateDamageIndicatorModels)
+                .forEach(definition -> definition.getModels().forEach(model ->
+                        getDamageIndicatorSnapshots(definition, model)));
+    }
+
+    private static ItemStackSnapshot[] createDamageIndicatorSnapshots(PluginContainer pluginContainer, String model) {
+        ItemStackSnapshot[] snapshots = new ItemStackSnapshot[DAMAGE_INDICATOR_STAGES];
+
+        for(int stage = 0; stage < DAMAGE_INDICATOR_STAGES; stage++) {
+            snapshots[stage] = DurabilityRegistry.getInstance()
+                    .createItemUnsafe(pluginContainer, getDamageIndicatorModel(model, stage))
+                    .createSnapshot();
+        }
+
+        return snapshots;
+    }
+
+    private ItemStackSnapshot[] getDamageIndicatorSnapshots(SimpleCustomBlockDefinition definition, String model) {
+        return modelIdToDamageIndicators.computeIfAbsent(Identifier.of(definition.getPluginContainer().getId(), model),
+                k -> createDamageIndicatorSnapshots(definition.getPluginContainer(), model));
+    }
+
+    /**
+     * @return The damage indicator item of the block at the specified stage, created in {@link #prepare()}
+     */
+    public ItemStackSnapshot getDamageIndicatorSnapshot(SimpleCustomBlock customBlock, int stage) {
+        SimpleCustomBlockDefinition definition = customBlock.getDefinition();
+        ItemStackSnapshot[] snapshots = definition.isGenerateDamageIndicatorModels()
+                ? getDamageIndicatorSnapshots(definition, customBlock.getModel())
+                : defaultDamageIndicators;
+
+        if(snapshots == null)
+            throw new IllegalStateException("The damage indicators have not been prepared yet.");
+
+        return snapshots[stage];
+    }
+
     @Override
     public void register(SimpleCustomBlockDefinition definition) {
         DurabilityRegistry durabilityRegistry = DurabilityRegistry.getInstance();
 
-        durabilityRegistry.register(SimpleCustomBlock.HELMET_ITEM_TYPE, definition);
+        durabilityRegistry.register(SimpleCustomBlock.HELMET_ITEM_TYPES, definition);
 
         if(definition.isGenerateDamageIndicatorModels()) {
             List<String> damageIndicatorModels = definition.getModels().stream()
@@ -107,7 +184,7 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
                             .map(stage -> getDamageIndicatorModel(model, stage)))
                     .collect(Collectors.toList());
 
-            durabilityRegistry.register(DAMAGE_INDICATOR_ITEM_TYPE, definition.getPluginContainer(), damageIndicatorModels, definition.getModelDirectoryName());
+            durabilityRegistry.register(DAMAGE_INDICATOR_ITEM_TYPES, definition.getPluginContainer(), damageIndicatorModels, definition.getModelDirectoryName());
         }
     }
 
@@ -125,7 +202,7 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
             }
         }
 
-        for(int stage = 0; stage < 10; stage++) {
+        for(int stage = 0; stage < DAMAGE_INDICATOR_STAGES; stage++) {
             Path modelFile = blocksDirectory.resolve(getDamageIndicatorModel(null, stage) + ".json");
             JsonObject root = new JsonObject();
             JsonObject textures = new JsonObject();
@@ -174,7 +251,11 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
     }
 
     public static String getDamageIndicatorModel(String model, double percentage) {
-        return getDamageIndicatorModel(model, (int) Math.max(0, Math.min(9, percentage * 10)));
+        return getDamageIndicatorModel(model, getDamageIndicatorStage(percentage));
+    }
+
+    public static int getDamageIndicatorStage(double percentage) {
+        return (int) Math.max(0, Math.min(DAMAGE_INDICATOR_STAGES - 1, percentage * DAMAGE_INDICATOR_STAGES));
     }
 
     @Override
@@ -247,20 +328,18 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
                 }
             }
 
-            armorStand = CustomBlockDefinition.createDummyArmorStand(block.getBlock());
-
-            extent.spawnEntity(armorStand, Cause.source(EntitySpawnCause.builder()
-                    .entity(armorStand)
-                    .type(SpawnTypes.PLUGIN).build())
-                    .build());
+            armorStand = CustomItemLibrary.getInstance().getService().getArmorStandPool().acquire(block.getBlock(),
+                    Cause.source(SpawnCause.builder()
+                            .type(SpawnTypes.PLUGIN).build())
+                            .build());
             customBlockData.set(CustomItemLibraryKeys.CUSTOM_BLOCK_DAMAGE_INDICATOR_ARMOR_STAND_ID, armorStand.getUniqueId());
+            block.getDataHolder().offer(customBlockData);
         }
 
-        block.getDataHolder().offer(customBlockData);
-
         return armorStand;
     }
 
+    // Also registered as the direct dispatch handler in prepare(), both paths must stay in this one method
     @Listener(order = Order.BEFORE_POST)
     public void onMiningProgress(MiningProgressEvent event) {
         Player player = event.getPlayer();
@@ -268,64 +347,127 @@ public class SimpleCustomBlockRegistry implements CustomFeatureRegistry<SimpleCu
         Location<World> location = snapshot.getLocation()
                 .orElseThrow(() -> new IllegalStateException("Could not access the location of the block that is being mined."));
 
-        CustomItemLibrary.getInstance().getService().getBlock(location)
-            .filter(SimpleCustomBlock.class::isInstance)
-            .map(SimpleCustomBlock.class::cast)
-            .ifPresent(customBlock -> {
-                SimpleCustomBlockDefinition definition = customBlock.getDefinition();
-                double hardness = definition.getHardness();
-                Optional<ItemStack> itemInHand = player.getItemInHand(HandTypes.MAIN_HAND);
-                boolean correctToolUsed = definition.getCorrectToolPredicate().isCorrectTool(itemInHand.orElse(null));
-                double requiredDuration = MiningManager.computeDuration(player, itemInHand.orElse(null),
-                                                                        correctToolUsed, hardness);
-
-                if (event.getDuration() >= requiredDuration) {
-                    Cause cause = event.getCause();
-                    CustomBlockBreakEvent customEvent = CustomBlockBreakEvent.of(customBlock, cause);
+        Optional<MiningManager.Mining> mining = CustomItemLibrary.getInstance().getMiningManager().getMining(player.getUniqueId())
+                .filter(currentMining -> currentMining.getSnapshot() == snapshot);
+        ItemStack itemInHand = player.getItemInHand(HandTypes.MAIN_HAND).orElse(null);
+        List<PotionEffect> potionEffects = player.get(Keys.POTION_EFFECTS).orElse(Collections.emptyList());
+        int hasteAmplifier = MiningManager.getAmplifier(potionEffects, PotionEffectTypes.HASTE);
+        int fatigueAmplifier = MiningManager.getAmplifier(potionEffects, PotionEffectTypes.MINING_FATIGUE);
+        Optional<SimpleCustomBlock> attachedBlock = mining
+                .flatMap(currentMining -> currentMining.getCustomBlock(itemInHand, hasteAmplifier, fatigueAmplifier))
+                .filter(SimpleCustomBlock.class::isInstance)
+                .map(SimpleCustomBlock.class::cast);
+        Optional<SimpleCustomBlock> resolvedBlock = attachedBlock.isPresent() ? attachedBlock
+                : CustomItemLibrary.getInstance().getService().getBlock(Block.ofUnchecked(location))
+                .filter(SimpleCustomBlock.class::isInstance)
+                .map(SimpleCustomBlock.class::cast);
+
+        resolvedBlock.ifPresent(customBlock -> {
+            SimpleCustomBlockDefinition definition = customBlock.getDefinition();
+            boolean correctToolUsed;
+            double requiredDuration;
+
+            if(attachedBlock.isPresent()) {
+                correctToolUsed = mining.get().isCorrectToolUsed();
+                requiredDuration = mining.get().getRequiredDuration();
+            } else {
+                correctToolUsed = definition.getCorrectToolPredicate().isCorrectTool(itemInHand);
+                requiredDuration = CustomItemLibrary.getInstance().getMiningManager().computeDuration(itemInHand,
+                        hasteAmplifier, fatigueAmplifier, correctToolUsed, definition.getHardness());
+
+                mining.ifPresent(currentMining -> currentMining.attach(customBlock, itemInHand, hasteAmplifier,
+                        fatigueAmplifier, requiredDuration, correctToolUsed));
+            }
 
-                    Sponge.getEventManager().post(customEvent);
+            if (event.getDuration() >= requiredDuration) {
+                Cause cause = event.getCause();
+                CustomBlockBreakEvent customEvent = CustomBlockBreakEvent.of(customBlock, cause);
 
-                    if(customEvent.isCancelled())
-                        return;
+                Sponge.getEventManager().post(customEvent);
 
-                    if(correctToolUsed) {
-                        spawnDrops(snapshot, customBlock, player, cause);
-                    }
+                if(customEvent.isCancelled())
+                    return;
 
-                    World world = location.getExtent();
-                    ParticleEffect particleEffect = ParticleEffect.builder()
-                            .type(ParticleTypes.BREAK_BLOCK)
-                            .option(ParticleOptions.BLOCK_STATE, definition.getEffectState())
-                            .build();
-                    Vector3d particlePosition = location.getBlockPosition().toDouble();
+                if(correctToolUsed) {
+                    spawnDrops(snapshot, customBlock, player, cause);
+                }
 
-                    world.spawnParticles(particleEffect, particlePosition);
-                    event.setCancelled(true);
-                    customBlock.remove(cause);
+                World world = location.getExtent();
+                ParticleEffect particleEffect = ParticleEffect.builder()
+                        .type(ParticleTypes.BREAK_BLOCK)
+                        .option(ParticleOptions.BLOCK_STATE, definition.getEffectState())
+                        .build();
+                Vector3d particlePosition = location.getBlockPosition().toDouble();
+
+                world.spawnParticles(particleEffect, particlePosition);
+                event.setCancelled(true);
+                // The indicator is not one of the armor stands of the block, so it is not released with them
+                mining.flatMap(MiningManager.Mining::getDamageIndicator).ifPresent(MiningManager.DamageIndicator::release);
+                customBlock.remove(cause);
+            } else {
+                int stage = getDamageIndicatorStage(event.getDuration() / requiredDuration);
+
+                if(mining.isPresent()) {
+                    MiningManager.DamageIndicator damageIndicator = getOrAcquireDamageIndicator(mining.get(), customBlock);
+
+                    // Shared by all players mining the block, so it shows the furthest progress
+                    if(stage > damageIndicator.getStage()) {
+                        damageIndicator.getArmorStand().setHelmet(getDamageIndicatorSnapshot(customBlock, stage).createStack());
+                        damageIndicator.setStage(stage);
+                    }
                 } else {
-                    ArmorStand damageIndicatorArmorStand = getOrSpawnDamageIndicatorArmorStand(customBlock);
-                    String currentModel = definition.isGenerateDamageIndicatorModels() ? customBlock.getModel() : null;
-                    double progress = event.getDuration() / requiredDuration;
-                    String damageIndicatorModel = getDamageIndicatorModel(currentModel, progress);
-                    ItemStack damageIndicatorItemStack = DurabilityRegistry.getInstance()
-                            .createItemUnsafe(DAMAGE_INDICATOR_ITEM_TYPE, definition.getPluginContainer(), damageIndicatorModel);
-
-                    damageIndicatorArmorStand.setHelmet(damageIndicatorItemStack);
+                    getOrSpawnDamageIndicatorArmorStand(customBlock)
+                            .setHelmet(getDamageIndicatorSnapshot(customBlock, stage).createStack());
                 }
-            });
+            }
+        });
+    }
+
+    /**
+     * @return The damage indicator of the session, the one of another player mining the same block,
+     *         or a new one
+     */
+    private static MiningManager.DamageIndicator getOrAcquireDamageIndicator(MiningManager.Mining mining,
+                                                                              SimpleCustomBlock customBlock) {
+        Optional<MiningManager.DamageIndicator> current = mining.getDamageIndicator();
+
+        if(current.isPresent())
+            return current.get();
+
+        BlockSnapshot snapshot = mining.getSnapshot();
+        MiningManager.DamageIndicator damageIndicator = CustomItemLibrary.getInstance().getMiningManager()
+                .findMining(other -> other != mining && other.getDamageIndicator().isPresent()
+                        && other.getSnapshot().getPosition().equals(snapshot.getPosition())
+                        && other.getSnapshot().getWorldUniqueId().equals(snapshot.getWorldUniqueId()))
+                .flatMap(MiningManager.Mining::getDamageIndicator)
+                .orElseGet(() -> new MiningManager.DamageIndicator(getOrSpawnDamageIndicatorArmorStand(customBlock)));
+
+        mining.setDamageIndicator(damageIndicator);
+
+        return damageIndicator;
     }
 
     @Listener(order = Order.BEFORE_POST)
     public void onMiningStop(MiningStopEvent event) {
+        Optional<MiningManager.DamageIndicator> damageIndicator = event.getMining().getDamageIndicator();
+
+        // Still shown to another player mining the block
+        if(!damageIndicator.isPresent() || CustomItemLibrary.getInstance().getMiningManager()
+                .findMining(other -> other.getDamageIndicator().filter(damageIndicator.get()::equals).isPresent())
+                .isPresent())
+            return;
+
         BlockSnapshot snapshot = event.getSnapshot();
         Location<World> location = snapshot.getLocation()
                 .orElseThrow(() -> new IllegalStateException("Could not access the location of the block that is being mined."));
 
-        CustomItemLibrary.getInstance().getService().getBlock(location)
+        damageIndicator.get().release();
+        // The armor stand may be reused elsewhere
+        CustomItemLibrary.getInstance().getService().getBlock(Block.ofUnchecked(location))
                 .filter(SimpleCustomBlock.class::isInstance)
-                .map(SimpleCustomBlock.class::cast)
-                .flatMap(SimpleCustomBlockRegistry::getDamageIndicatorArmorStand)
-                .ifPresent(Entity::remove);
+                .filter(CustomBlock::isAccessible)
+                .ifPresent(customBlock -> customBlock.getDataHolder().offer(
+                        CustomItemLibraryKeys.CUSTOM_BLOCK_DAMAGE_INDICATOR_ARMOR_STAND_ID, CustomBlockData.UUID_MISSING));
     }
 
     private static void spawnDrops(BlockSnapshot snapshot, SimpleCustomBlock customBlock, Player player, Cause cause) {
@@ -0,0 +1,17 @@
+package cz.creeper.customitemlibrary.feature.block.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The result of comparing the {@link PersistentBlockIndex} with the armor stands in the loaded chunks.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BlockIndexVerification {
+    private final int checkedChunks;
+    private final int mismatchedChunks;
+    private final boolean rebuilt;
+}
@@ -0,0 +1,227 @@
+package cz.creeper.customitemlibrary.feature.block.storage;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.util.BlockIndex;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Remembers the positions of custom blocks and the ids of their armor stands on disk,
+ * so the armor stands of a loaded chunk can be looked up directly instead of scanning all of its entities.
+ * The index is split into one {@link RegionIndexFile} per world region, changes are written by {@link #flush()}.
+ * Regions are kept in memory while any of their chunks is loaded, or while they have unwritten changes.
+ */
+@ToString(of = {"directory", "indexedChunkReads", "unindexedChunkReads", "writtenRegions"})
+public class PersistentBlockIndex {
+    public static final String FILE_EXTENSION = ".cbi";
+    @Getter
+    private final Path directory;
+    private final Map<UUID, LongObjectHashMap<RegionIndexFile>> worldIdToRegions = Maps.newHashMap();
+    @Getter
+    private long indexedChunkReads;
+    @Getter
+    private long unindexedChunkReads;
+    @Getter
+    private long writtenRegions;
+
+    public PersistentBlockIndex(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The position keys (see {@link BlockIndex#positionKey(int, int, int)}) of the custom blocks
+     *         in the chunk mapped to the ids of their armor stands, or {@link Optional#empty()},
+     *         if the chunk has not been indexed yet
+     */
+    public Optional<LongObjectHashMap<UUID>> readChunk(UUID worldId, int chunkX, int chunkZ) {
+        RegionIndexFile region = getRegion(worldId, chunkX, chunkZ);
+        LongObjectHashMap<UUID> blocks;
+
+        try {
+            blocks = region.readChunk(RegionIndexFile.getLocalIndex(chunkX, chunkZ));
+        } catch(IOException e) {
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn("Could not read the custom block index file " + region.getPath() + ", scanning the chunk instead.");
+            e.printStackTrace();
+            blocks = null;
+        }
+
+        releaseIfUnused(worldId, chunkX, chunkZ, region);
+
+        if(blocks == null) {
+            unindexedChunkReads++;
+            return Optional.empty();
+        }
+
+        indexedChunkReads++;
+        return Optional.of(blocks);
+    }
+
+    /**
+     * Replaces all indexed blocks of the chunk.
+     *
+     * @param blocks The position keys of the custom blocks mapped to the ids of their armor stands
+     */
+    public void writeChunk(UUID worldId, int chunkX, int chunkZ, LongObjectHashMap<UUID> blocks) {
+        getRegion(worldId, chunkX, chunkZ).writeChunk(RegionIndexFile.getLocalIndex(chunkX, chunkZ), blocks);
+    }
+
+    /**
+     * Keeps the region of the chunk in memory until the chunk is unloaded.
+     */
+    public void loadChunk(UUID worldId, int chunkX, int chunkZ) {
+        getRegion(worldId, chunkX, chunkZ).setChunkLoaded(RegionIndexFile.getLocalIndex(chunkX, chunkZ), true);
+    }
+
+    /**
+     * Writes the region right away, if the chunk has unwritten changes.
+     * The chunk may be saved to disk once unloaded, so its armor stands must not be missing from the index after a crash.
+     */
+    public void unloadChunk(UUID worldId, int chunkX, int chunkZ) {
+        RegionIndexFile region = findRegion(worldId, chunkX, chunkZ);
+
+        if(region == null)
+            return;
+
+        int localIndex = RegionIndexFile.getLocalIndex(chunkX, chunkZ);
+
+        region.setChunkLoaded(localIndex, false);
+
+        if(region.isDirty(localIndex))
+            write(region);
+
+        releaseIfUnused(worldId, chunkX, chunkZ, region);
+    }
+
+    /**
+     * Writes the changes of the world to disk and forgets all of its regions.
+     */
+    public void unloadWorld(UUID worldId) {
+        flushWorld(worldId);
+        worldIdToRegions.remove(worldId);
+    }
+
+    public void put(UUID worldId, int x, int y, int z, UUID armorStandId) {
+        modifyChunk(worldId, x >> BlockIndex.CHUNK_SHIFT, z >> BlockIndex.CHUNK_SHIFT,
+                blocks -> blocks.put(BlockIndex.positionKey(x, y, z), armorStandId));
+    }
+
+    public void remove(UUID worldId, int x, int y, int z) {
+        modifyChunk(worldId, x >> BlockIndex.CHUNK_SHIFT, z >> BlockIndex.CHUNK_SHIFT,
+                blocks -> blocks.remove(BlockIndex.positionKey(x, y, z)));
+    }
+
+    /**
+     * Writes the changes of all worlds to disk.
+     */
+    public void flush() {
+        Lists.newArrayList(worldIdToRegions.keySet()).forEach(this::flushWorld);
+    }
+
+    /**
+     * Writes the changes of the world to disk.
+     * Regions which could not be written are kept in memory and retried by the next flush.
+     * Regions without loaded chunks are released once written.
+     */
+    public void flushWorld(UUID worldId) {
+        LongObjectHashMap<RegionIndexFile> regions = worldIdToRegions.get(worldId);
+
+        if(regions == null)
+            return;
+
+        regions.removeIf((regionKey, region) -> {
+            write(region);
+
+            return !region.isDirty() && !region.hasLoadedChunks();
+        });
+
+        if(regions.isEmpty())
+            worldIdToRegions.remove(worldId);
+    }
+
+    private void write(RegionIndexFile region) {
+        if(!region.isDirty())
+            return;
+
+        try {
+            region.write();
+            writtenRegions++;
+        } catch(IOException e) {
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn("Could not write the custom block index file " + region.getPath() + ".");
+            e.printStackTrace();
+        }
+    }
+
+    private void modifyChunk(UUID worldId, int chunkX, int chunkZ, Consumer<LongObjectHashMap<UUID>> modification) {
+        RegionIndexFile region = getRegion(worldId, chunkX, chunkZ);
+
+        try {
+            LongObjectHashMap<UUID> blocks = region.modifyChunk(RegionIndexFile.getLocalIndex(chunkX, chunkZ));
+
+            // Chunks that have not been indexed yet are scanned when loaded, so they must stay unindexed
+            if(blocks != null)
+                modification.accept(blocks);
+        } catch(IOException e) {
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn("Could not read the custom block index file " + region.getPath() + ".");
+            e.printStackTrace();
+        }
+
+        releaseIfUnused(worldId, chunkX, chunkZ, region);
+    }
+
+    private RegionIndexFile findRegion(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectHashMap<RegionIndexFile> regions = worldIdToRegions.get(worldId);
+
+        return regions != null ? regions.get(BlockIndex.chunkKey(chunkX >> RegionIndexFile.REGION_SHIFT,
+                chunkZ >> RegionIndexFile.REGION_SHIFT)) : null;
+    }
+
+    private RegionIndexFile getRegion(UUID worldId, int chunkX, int chunkZ) {
+        LongObjectHashMap<RegionIndexFile> regions = worldIdToRegions.computeIfAbsent(worldId, k -> new LongObjectHashMap<>());
+        int regionX = chunkX >> RegionIndexFile.REGION_SHIFT;
+        int regionZ = chunkZ >> RegionIndexFile.REGION_SHIFT;
+        long regionKey = BlockIndex.chunkKey(regionX, regionZ);
+        RegionIndexFile region = regions.get(regionKey);
+
+        if(region == null) {
+            region = new RegionIndexFile(getRegionPath(worldId, regionX, regionZ));
+            regions.put(regionKey, region);
+        }
+
+        return region;
+    }
+
+    /**
+     * Only regions with unwritten changes or loaded chunks are kept in memory.
+     */
+    private void releaseIfUnused(UUID worldId, int chunkX, int chunkZ, RegionIndexFile region) {
+        if(region.isDirty() || region.hasLoadedChunks())
+            return;
+
+        LongObjectHashMap<RegionIndexFile> regions = worldIdToRegions.get(worldId);
+
+        if(regions == null)
+            return;
+
+        regions.remove(BlockIndex.chunkKey(chunkX >> RegionIndexFile.REGION_SHIFT, chunkZ >> RegionIndexFile.REGION_SHIFT));
+
+        if(regions.isEmpty())
+            worldIdToRegions.remove(worldId);
+    }
+
+    public Path getRegionPath(UUID worldId, int regionX, int regionZ) {
+        return directory.resolve(worldId.toString()).resolve("r." + regionX + "." + regionZ + FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,263 @@
+package cz.creeper.customitemlibrary.feature.block.storage;
+
+import cz.creeper.customitemlibrary.CustomItemLibrary;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * The custom block positions of a single region (32x32 chunks), stored in a fixed-layout binary file.
+ *
+ * <pre>
+ * int  magic
+ * int  version
+ * (int offset, int count) * 1024   chunk table, indexed by localZ * 32 + localX, offset 0 = chunk not indexed
+ * (int positionKey, long armorStandIdMost, long armorStandIdLeast) * n   records, grouped by chunk
+ * </pre>
+ *
+ * All values are big-endian and every structure has a fixed offset. The file is read once, validated
+ * and kept in memory, chunks are sliced out of it. Changes are kept in memory until {@link #write()} is called.
+ */
+class RegionIndexFile {
+    public static final int MAGIC = 0x43494249;  // "CIBI"
+    public static final int VERSION = 1;
+    public static final int REGION_SHIFT = 5;
+    public static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    public static final int CHUNKS_PER_REGION = 1 << (REGION_SHIFT << 1);
+    public static final int TABLE_ENTRY_SIZE = 8;
+    public static final int HEADER_SIZE = 8 + CHUNKS_PER_REGION * TABLE_ENTRY_SIZE;
+    public static final int RECORD_SIZE = 4 + 8 + 8;
+    @Getter
+    private final Path path;
+    // Local chunk index -> position key -> armor stand id
+    private final LongObjectHashMap<LongObjectHashMap<UUID>> dirtyChunks = new LongObjectHashMap<>();
+    // The validated contents of the file, null if there is no file or it is damaged
+    private ByteBuffer contents;
+    private boolean contentsRead;
+    // The chunks of the region loaded in the world, the region is kept in memory while there are any
+    private final BitSet loadedChunks = new BitSet(CHUNKS_PER_REGION);
+
+    RegionIndexFile(Path path) {
+        this.path = path;
+    }
+
+    public boolean isDirty() {
+        return !dirtyChunks.isEmpty();
+    }
+
+    /**
+     * @return Whether the chunk has changes that have not been written yet
+     */
+    public boolean isDirty(int localIndex) {
+        return dirtyChunks.containsKey(localIndex);
+    }
+
+    public void setChunkLoaded(int localIndex, boolean loaded) {
+        loadedChunks.set(localIndex, loaded);
+    }
+
+    public boolean hasLoadedChunks() {
+        return !loadedChunks.isEmpty();
+    }
+
+    /**
+     * @return The indexed blocks of the chunk, or {@code null}, if the chunk has not been indexed yet
+     */
+    public LongObjectHashMap<UUID> readChunk(int localIndex) throws IOException {
+        LongObjectHashMap<UUID> dirtyChunk = dirtyChunks.get(localIndex);
+
+        if(dirtyChunk != null)
+            return copy(dirtyChunk);
+
+        return readChunk(getContents(), localIndex);
+    }
+
+    /**
+     * Replaces all indexed blocks of the chunk.
+     */
+    public void writeChunk(int localIndex, LongObjectHashMap<UUID> blocks) {
+        dirtyChunks.put(localIndex, copy(blocks));
+    }
+
+    /**
+     * @return The modifiable blocks of the chunk, or {@code null}, if the chunk has not been indexed yet
+     */
+    public LongObjectHashMap<UUID> modifyChunk(int localIndex) throws IOException {
+        LongObjectHashMap<UUID> dirtyChunk = dirtyChunks.get(localIndex);
+
+        if(dirtyChunk == null) {
+            dirtyChunk = readChunk(getContents(), localIndex);
+
+            if(dirtyChunk == null)
+                return null;
+
+            dirtyChunks.put(localIndex, dirtyChunk);
+        }
+
+        return dirtyChunk;
+    }
+
+    /**
+     * Merges the changes with the file contents and atomically replaces the file.
+     * If the file on disk is damaged, it is replaced by the changes alone,
+     * leaving the other chunks of the region unindexed, so they are scanned when loaded.
+     */
+    public void write() throws IOException {
+        if(!isDirty())
+            return;
+
+        ByteBuffer previousContents = getContents();
+        @SuppressWarnings("unchecked")
+        LongObjectHashMap<UUID>[] chunks = new LongObjectHashMap[CHUNKS_PER_REGION];
+        int recordCount = 0;
+
+        for(int localIndex = 0; localIndex < CHUNKS_PER_REGION; localIndex++) {
+            LongObjectHashMap<UUID> chunk = dirtyChunks.get(localIndex);
+
+            if(chunk == null)
+                chunk = readChunk(previousContents, localIndex);
+
+            if(chunk != null) {
+                chunks[localIndex] = chunk;
+                recordCount += chunk.size();
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + recordCount * RECORD_SIZE);
+        int offset = HEADER_SIZE;
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+
+        for(LongObjectHashMap<UUID> chunk : chunks) {
+            buffer.putInt(chunk != null ? offset : 0);
+            buffer.putInt(chunk != null ? chunk.size() : 0);
+
+            if(chunk != null)
+                offset += chunk.size() * RECORD_SIZE;
+        }
+
+        for(LongObjectHashMap<UUID> chunk : chunks) {
+            if(chunk == null)
+                continue;
+
+            chunk.forEach((positionKey, armorStandId) -> {
+                buffer.putInt((int) positionKey);
+                buffer.putLong(armorStandId.getMostSignificantBits());
+                buffer.putLong(armorStandId.getLeastSignificantBits());
+            });
+        }
+
+        buffer.flip();
+        Files.createDirectories(path.getParent());
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try(FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        buffer.rewind();
+        contents = buffer;
+        contentsRead = true;
+        dirtyChunks.clear();
+    }
+
+    /**
+     * Reads and validates the whole file on first access.
+     *
+     * @return The contents of the file, or {@code null}, if there is no file or it is damaged
+     */
+    private ByteBuffer getContents() throws IOException {
+        if(contentsRead)
+            return contents;
+
+        ByteBuffer buffer = Files.isRegularFile(path) ? ByteBuffer.wrap(Files.readAllBytes(path)) : null;
+
+        if(buffer != null && !isValid(buffer)) {
+            CustomItemLibrary.getInstance().getLogger()
+                    .warn("The custom block index file " + path + " is damaged, its chunks will be scanned and it will be rewritten.");
+            buffer = null;
+        }
+
+        contents = buffer;
+        contentsRead = true;
+
+        return contents;
+    }
+
+    private static boolean isValid(ByteBuffer buffer) {
+        if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            return false;
+
+        for(int localIndex = 0; localIndex < CHUNKS_PER_REGION; localIndex++) {
+            int tableOffset = 8 + localIndex * TABLE_ENTRY_SIZE;
+            int offset = buffer.getInt(tableOffset);
+            int count = buffer.getInt(tableOffset + 4);
+
+            if(offset == 0)
+                continue;
+
+            if(offset < HEADER_SIZE || count < 0 || (long) offset + (long) count * RECORD_SIZE > buffer.limit())
+                return false;
+        }
+
+        return true;
+    }
+
+    private static LongObjectHashMap<UUID> readChunk(ByteBuffer contents, int localIndex) {
+        if(contents == null)
+            return null;
+
+        int tableOffset = 8 + localIndex * TABLE_ENTRY_SIZE;
+        int offset = contents.getInt(tableOffset);
+        int count = contents.getInt(tableOffset + 4);
+
+        if(offset == 0)
+            return null;
+
+        LongObjectHashMap<UUID> blocks = new LongObjectHashMap<>(count);
+
+        for(int i = 0; i < count; i++) {
+            int recordOffset = offset + i * RECORD_SIZE;
+            int positionKey = contents.getInt(recordOffset);
+            UUID armorStandId = new UUID(contents.getLong(recordOffset + 4), contents.getLong(recordOffset + 12));
+
+            blocks.put(positionKey, armorStandId);
+        }
+
+        return blocks;
+    }
+
+    private static LongObjectHashMap<UUID> copy(LongObjectHashMap<UUID> blocks) {
+        LongObjectHashMap<UUID> copy = new LongObjectHashMap<>(blocks.size());
+
+        blocks.forEach(copy::put);
+
+        return copy;
+    }
+
+    public static int getLocalIndex(int chunkX, int chunkZ) {
+        return ((chunkZ & REGION_MASK) << REGION_SHIFT) | (chunkX & REGION_MASK);
+    }
+}
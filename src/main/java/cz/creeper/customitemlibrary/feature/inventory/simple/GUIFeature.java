@@ -5,7 +5,6 @@ import lombok.Builder;
 import lombok.NonNull;
 import lombok.Value;
 import org.spongepowered.api.data.key.Keys;
-import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.text.Text;
 
@@ -33,9 +32,8 @@ public class GUIFeature {
     }
 
     public static ItemStack adjustItemStack(GUIModel model, Consumer<ItemStack> consumer) {
-        ItemType itemType = model.getItemType();
         ItemStack itemStack = DurabilityRegistry.getInstance()
-                .createItemUnsafe(itemType, model.getPluginContainer(), model.getModelName());
+                .createItemUnsafe(model.getPluginContainer(), model.getModelName());
 
         consumer.accept(itemStack);
 
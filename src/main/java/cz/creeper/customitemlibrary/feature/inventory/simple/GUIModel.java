@@ -7,6 +7,7 @@ import com.flowpowered.math.vector.Vector2d;
 import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector4d;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
@@ -24,12 +25,17 @@ import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.plugin.PluginContainer;
 
+import java.util.List;
+
 /**
  * Consists of data necessary to create a model file.
  */
 @Value
 public class GUIModel {
     public static final ItemType DEFAULT_ITEM_TYPE = ItemTypes.DIAMOND_LEGGINGS;
+    // Models of the default item type spill over to the next one, once its durabilities are used up
+    public static final List<ItemType> DEFAULT_ITEM_TYPES = ImmutableList.of(DEFAULT_ITEM_TYPE, ItemTypes.IRON_LEGGINGS,
+            ItemTypes.GOLDEN_LEGGINGS, ItemTypes.CHAINMAIL_LEGGINGS);
     public static final GUIModel EMPTY = GUIModel.builder()
             .plugin(CustomItemLibrary.getInstance())
             .textureId(TextureId.of(CustomItemLibrary.getInstance(), null, "empty"))
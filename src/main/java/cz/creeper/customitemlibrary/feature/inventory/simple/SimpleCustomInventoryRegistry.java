@@ -50,7 +50,8 @@ public class SimpleCustomInventoryRegistry implements CustomFeatureRegistry<Simp
 
     private static void registerGUIModelDurability(GUIModel model) {
         DurabilityRegistry.getInstance().register(
-                model.getItemType(),
+                model.getItemType() == GUIModel.DEFAULT_ITEM_TYPE ? GUIModel.DEFAULT_ITEM_TYPES
+                        : Collections.singletonList(model.getItemType()),
                 model.getPluginContainer(),
                 Collections.singleton(model.getModelName()),
                 MODEL_DIRECTORY_NAME
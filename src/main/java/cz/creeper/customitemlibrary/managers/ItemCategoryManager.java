@@ -1,29 +1,43 @@
 package cz.creeper.customitemlibrary.managers;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import cz.creeper.customitemlibrary.CustomItemLibrary;
 import cz.creeper.customitemlibrary.util.Identifier;
 import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Loads the item categories from the config and indexes them as a bit set of categories per {@link ItemType},
+ * so checking whether an item belongs to a category is a single map read and a bit test.
+ */
 public class ItemCategoryManager {
     public static final String NODE_ITEM_CATEGORIES = "item_categories";
+    public static final int MAX_CATEGORIES = Long.SIZE;
     private final Multimap<String, Identifier> categoryToItemIds = HashMultimap.create();
+    private final Map<String, Long> categoryToMask = Maps.newHashMap();
+    private final Map<ItemType, Long> itemTypeToCategories = Maps.newHashMap();
 
     public ItemCategoryManager load() {
         categoryToItemIds.clear();
+        categoryToMask.clear();
+        itemTypeToCategories.clear();
 
         CustomItemLibrary plugin = CustomItemLibrary.getInstance();
         Path path = plugin.getConfigPath();
@@ -56,7 +70,7 @@ public class ItemCategoryManager {
                     if(Identifier.isParseable(itemId))
                         return Identifier.parse(itemId);
                     else
-                        return new Identifier("minecraft", itemId);
+                        return Identifier.of("minecraft", itemId);
                 }).collect(Collectors.toSet());
 
                 categoryToItemIds.putAll(category, identifiers);
@@ -67,9 +81,59 @@ public class ItemCategoryManager {
             e.printStackTrace();
         }
 
+        buildIndex();
+
         return this;
     }
 
+    private void buildIndex() {
+        for(String category : categoryToItemIds.keySet()) {
+            if(categoryToMask.size() >= MAX_CATEGORIES) {
+                CustomItemLibrary.getInstance().getLogger()
+                        .warn("Too many item categories, at most " + MAX_CATEGORIES + " are supported. Skipping '" + category + "'.");
+                continue;
+            }
+
+            long mask = 1L << categoryToMask.size();
+
+            categoryToMask.put(category, mask);
+
+            for(Identifier itemId : categoryToItemIds.get(category)) {
+                Optional<ItemType> itemType = Sponge.getRegistry().getType(ItemType.class, itemId.toString());
+
+                if(!itemType.isPresent()) {
+                    CustomItemLibrary.getInstance().getLogger()
+                            .warn("Unknown item '" + itemId + "' in item category '" + category + "', skipping.");
+                    continue;
+                }
+
+                itemTypeToCategories.merge(itemType.get(), mask, (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * @return The bit of the category, or 0, if there is no such category
+     */
+    public long getCategoryMask(String category) {
+        return categoryToMask.getOrDefault(category, 0L);
+    }
+
+    /**
+     * @return The bit set of categories the item type belongs to
+     */
+    public long getCategories(ItemType itemType) {
+        return itemTypeToCategories.getOrDefault(itemType, 0L);
+    }
+
+    public boolean isInCategory(ItemType itemType, String category) {
+        return (getCategories(itemType) & getCategoryMask(category)) != 0;
+    }
+
+    public Set<String> getCategoryNames() {
+        return Collections.unmodifiableSet(categoryToMask.keySet());
+    }
+
     private static void defaultCategory(CommentedConfigurationNode nodeCategories, String category, ItemType... itemTypes) {
         nodeCategories.getNode(category).setValue(
                 Stream.of(itemTypes).map(ItemType::getId).collect(Collectors.toList())
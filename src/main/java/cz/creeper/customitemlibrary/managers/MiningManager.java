@@ -1,19 +1,28 @@
 package cz.creeper.customitemlibrary.managers;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import cz.creeper.customitemlibrary.CustomItemLibrary;
 import cz.creeper.customitemlibrary.event.MiningProgressEvent;
 import cz.creeper.customitemlibrary.event.MiningStopEvent;
-import cz.creeper.customitemlibrary.util.Wrapper;
-import lombok.AllArgsConstructor;
+import cz.creeper.customitemlibrary.feature.block.CustomBlock;
+import cz.creeper.customitemlibrary.util.LongObjectHashMap;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
-import lombok.val;
+import ninja.leaping.configurate.ConfigurationOptions;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.data.Transaction;
 import org.spongepowered.api.data.key.Keys;
+import org.spongepowered.api.data.meta.ItemEnchantment;
 import org.spongepowered.api.data.property.item.EfficiencyProperty;
+import org.spongepowered.api.effect.potion.PotionEffect;
 import org.spongepowered.api.effect.potion.PotionEffectType;
 import org.spongepowered.api.effect.potion.PotionEffectTypes;
+import org.spongepowered.api.entity.living.ArmorStand;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.event.Order;
@@ -21,13 +30,20 @@ import org.spongepowered.api.event.block.ChangeBlockEvent;
 import org.spongepowered.api.event.block.InteractBlockEvent;
 import org.spongepowered.api.event.cause.Cause;
 import org.spongepowered.api.event.filter.cause.First;
-import org.spongepowered.api.item.Enchantment;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
 import org.spongepowered.api.item.Enchantments;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.inventory.ItemStack;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Handles mining progress on the server-side.
@@ -37,13 +53,62 @@ public class MiningManager {
     public static final int BREAK_DELAY_TICKS = 5;
     // An allowed gap between block interaction packets/events
     public static final int BREAK_FREQUENCY_ALLOWED_ERROR = 1;
-    private final Map<UUID, Mining> playerToMining = Maps.newHashMap();
-    private final Map<UUID, Integer> playerToBlockBreak = Maps.newHashMap();
-    /*
-     Used to store the currently targeted block.
-     It becomes unavailable when the player holds the LMB and looks away from the block.
-      */
-    private final Map<UUID, BlockSnapshot> playerToCurrentlyTargetedBlock = Maps.newHashMap();
+    private static final int NO_TICK = Integer.MIN_VALUE;
+    public static final String NODE_MINING = "mining";
+    public static final String NODE_DIRECT_DISPATCH = "direct_dispatch";
+    // Memoised factors of the break duration, see computeDuration; only accessed from the main thread
+    private final Map<ItemType, LongObjectHashMap<Double>> itemTypeToToolFactors = Maps.newHashMap();
+    private final LongObjectHashMap<Double> effectFactors = new LongObjectHashMap<>();
+    private final Map<UUID, Session> sessions = Maps.newHashMap();
+    // The sessions of players who are mining, so that the others are not visited every tick
+    private final List<Session> miningSessions = Lists.newArrayList();
+    // Called instead of posting MiningProgressEvent, when direct dispatch is enabled
+    private final List<Consumer<MiningProgressEvent>> progressHandlers = Lists.newArrayList();
+    /**
+     * When enabled, {@link MiningProgressEvent}s are passed to the handlers registered with
+     * {@link #addProgressHandler(Consumer)} instead of being posted to the event manager.
+     * Only enable it when no other plugin listens to {@link MiningProgressEvent}.
+     * Loaded from the {@code mining.direct_dispatch} config node, see {@link #load()}.
+     */
+    @Getter
+    @Setter
+    private boolean directDispatch;
+    @Getter
+    private long ticks;
+    @Getter
+    private long postedEvents;
+    @Getter
+    private long directlyDispatchedEvents;
+
+    /**
+     * Loads the {@code mining} section of the config.
+     */
+    public MiningManager load() {
+        CustomItemLibrary plugin = CustomItemLibrary.getInstance();
+        Path path = plugin.getConfigPath();
+        ConfigurationOptions options = plugin.getDefaultConfigurationOptions();
+        HoconConfigurationLoader loader = HoconConfigurationLoader.builder()
+                .setDefaultOptions(options).setPath(path).build();
+
+        try {
+            CommentedConfigurationNode root = loader.load();
+            CommentedConfigurationNode nodeDirectDispatch = root.getNode(NODE_MINING, NODE_DIRECT_DISPATCH);
+
+            nodeDirectDispatch.setComment("Skips the event manager for mining progress events and passes them to "
+                    + "CustomItemLibrary directly. Only enable it if no other plugin listens to MiningProgressEvent.");
+
+            if(nodeDirectDispatch.isVirtual())
+                nodeDirectDispatch.setValue(false);
+
+            directDispatch = nodeDirectDispatch.getBoolean(false);
+
+            loader.save(root);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return this;
+    }
 
     public MiningManager start() {
         Sponge.getEventManager().registerListeners(CustomItemLibrary.getInstance(), this);
@@ -60,12 +125,78 @@ public class MiningManager {
         Sponge.getEventManager().unregisterListeners(this);
     }
 
+    /**
+     * @return The block the player is currently mining, if any
+     */
+    public Optional<Mining> getMining(UUID playerId) {
+        Session session = sessions.get(playerId);
+
+        return session != null ? Optional.ofNullable(session.mining) : Optional.empty();
+    }
+
+    /**
+     * @return Any block currently being mined, which matches the predicate
+     */
+    public Optional<Mining> findMining(Predicate<Mining> predicate) {
+        for(Session session : miningSessions) {
+            Mining mining = session.mining;
+
+            if(mining != null && predicate.test(mining))
+                return Optional.of(mining);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @return The number of players who were mining during the last tick
+     */
+    public int getActiveMiners() {
+        return miningSessions.size();
+    }
+
+    /**
+     * @return The average number of mining events posted or dispatched directly per tick
+     */
+    public double getAverageEventsPerTick() {
+        return ticks > 0 ? (double) (postedEvents + directlyDispatchedEvents) / ticks : 0;
+    }
+
+    /**
+     * Registers a handler which receives {@link MiningProgressEvent}s while direct dispatch is enabled.
+     * It must do the same as the {@link Listener} of the event it replaces, as only one of them is called,
+     * depending on {@link #isDirectDispatch()}. Keep the two in sync, ideally by registering the listener method itself.
+     */
+    public void addProgressHandler(Consumer<MiningProgressEvent> handler) {
+        progressHandlers.add(handler);
+    }
+
+    private Session getSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), k -> new Session(player));
+    }
+
+    @Listener
+    public void onClientConnectionJoin(ClientConnectionEvent.Join event) {
+        Player player = event.getTargetEntity();
+
+        sessions.put(player.getUniqueId(), new Session(player));
+    }
+
+    @Listener(order = Order.POST)
+    public void onClientConnectionDisconnect(ClientConnectionEvent.Disconnect event) {
+        Session session = sessions.remove(event.getTargetEntity().getUniqueId());
+
+        // Removed from the mining sessions during the next tick
+        if(session != null && session.mining != null)
+            stopMining(session, Sponge.getServer().getRunningTimeTicks(), MiningStopEvent.Reason.BUTTON_RELEASED);
+    }
+
     @Listener(order = Order.BEFORE_POST)
     public void onInteractBlock(InteractBlockEvent.Primary.MainHand event, @First Player player) {
-        UUID playerId = player.getUniqueId();
+        Session session = getSession(player);
         int currentTick = Sponge.getServer().getRunningTimeTicks();
         BlockSnapshot snapshot = event.getTargetBlock();
-        Mining mining = playerToMining.get(playerId);
+        Mining mining = session.mining;
 
         // BlockSnapshot.NONE signifies, that the mouse button is being held on the clicked block
         if(BlockSnapshot.NONE.equals(snapshot) && mining != null) {
@@ -75,155 +206,375 @@ public class MiningManager {
         }
 
         if(!BlockSnapshot.NONE.equals(snapshot)) {
-            playerToCurrentlyTargetedBlock.put(playerId, snapshot);
+            session.currentlyTargetedBlock = snapshot;
         }
 
-        snapshot = playerToCurrentlyTargetedBlock.get(playerId);
+        snapshot = session.currentlyTargetedBlock;
 
         if(snapshot == null) {
             return;
         }
 
         if(mining != null) {
-            int durationTicks = currentTick - mining.tickStarted;
-
-            if(durationTicks < 0)
-                durationTicks = 0;
-
-            MiningStopEvent stopEvent = new MiningStopEvent(playerId, mining.snapshot, durationTicks,
-                    Cause.source(CustomItemLibrary.getInstance().getPluginContainer()).notifier(player).build(), MiningStopEvent.Reason.STARTED_MINING_OTHER_BLOCK);
-
-            Sponge.getEventManager().post(stopEvent);
+            stopMining(session, currentTick, MiningStopEvent.Reason.STARTED_MINING_OTHER_BLOCK);
         }
 
-        Integer blockBreakTick = playerToBlockBreak.get(playerId);
         int delay;
 
-        if(blockBreakTick != null) {
-            int blockBreakDiff = currentTick - blockBreakTick;
+        if(session.blockBreakTick != NO_TICK) {
+            int blockBreakDiff = currentTick - session.blockBreakTick;
             delay = blockBreakDiff < BREAK_DELAY_TICKS ? BREAK_DELAY_TICKS - blockBreakDiff : 0;
         } else {
             delay = 0;
         }
 
-        mining = new Mining(currentTick + delay, currentTick, true, snapshot);
+        if(mining == null)
+            miningSessions.add(session);
 
-        playerToMining.put(playerId, mining);
+        session.mining = new Mining(currentTick + delay, currentTick, true, snapshot);
     }
 
     @Listener(order = Order.POST)
     public void onChangeBlockBreak(ChangeBlockEvent.Break event, @First Player player) {
-        UUID playerId = player.getUniqueId();
-        int currentTick = Sponge.getServer().getRunningTimeTicks();
+        getSession(player).blockBreakTick = Sponge.getServer().getRunningTimeTicks();
+    }
+
+    // The block being mined might have been replaced, forget what was resolved about it.
+    @Listener(order = Order.POST)
+    public void onChangeBlock(ChangeBlockEvent event) {
+        if(miningSessions.isEmpty())
+            return;
 
-        playerToBlockBreak.put(playerId, currentTick);
+        for(Transaction<BlockSnapshot> transaction : event.getTransactions()) {
+            BlockSnapshot original = transaction.getOriginal();
+
+            for(Session session : miningSessions) {
+                Mining mining = session.mining;
+
+                if(mining != null && mining.snapshot.getWorldUniqueId().equals(original.getWorldUniqueId())
+                        && mining.snapshot.getPosition().equals(original.getPosition()))
+                    mining.invalidate();
+            }
+        }
     }
 
     // This is run after the interact events, so we can check whether the player was still mining.
     public void tick() {
-        val iterator = playerToMining.entrySet().iterator();
-
-        while(iterator.hasNext()) {
-            val entry = iterator.next();
-            UUID playerId = entry.getKey();
-            Mining mining = entry.getValue();
-            Optional<Player> player = Sponge.getServer().getPlayer(playerId);
-            int currentTick = Sponge.getServer().getRunningTimeTicks();
-            int updateDurationTick = currentTick - mining.tickUpdated;
-            int durationTicks = currentTick - mining.tickStarted;
-
-            if(durationTicks < 0)
-                durationTicks = 0;
+        int currentTick = Sponge.getServer().getRunningTimeTicks();
 
-            // Is the player mining?
-            if(player.isPresent()) {
-                if((mining.justCreated && updateDurationTick <= BREAK_DELAY_TICKS)
-                        || (!mining.justCreated && updateDurationTick <= BREAK_FREQUENCY_ALLOWED_ERROR)) {
-                    MiningProgressEvent miningEvent = new MiningProgressEvent(player.get(), mining.snapshot, durationTicks,
-                            Cause.source(CustomItemLibrary.getInstance().getPluginContainer()).notifier(player).build(), false);
+        ticks++;
 
-                    boolean cancelled = Sponge.getEventManager().post(miningEvent);
+        // Backwards, so that finished sessions can be swapped with the last one and removed
+        for(int index = miningSessions.size() - 1; index >= 0; index--) {
+            Session session = miningSessions.get(index);
+            Mining mining = session.mining;
 
-                    if (cancelled) {
-                        iterator.remove();
+            if(mining != null) {
+                int updateDurationTick = currentTick - mining.tickUpdated;
 
-                        MiningStopEvent stopEvent = new MiningStopEvent(playerId, mining.snapshot, durationTicks,
-                                Cause.source(CustomItemLibrary.getInstance().getPluginContainer()).notifier(player).build(), MiningStopEvent.Reason.MINING_PROGRESS_EVENT_CANCELLED);
+                // Is the player mining?
+                if(session.player.isOnline() && ((mining.justCreated && updateDurationTick <= BREAK_DELAY_TICKS)
+                        || (!mining.justCreated && updateDurationTick <= BREAK_FREQUENCY_ALLOWED_ERROR))) {
+                    MiningProgressEvent miningEvent = new MiningProgressEvent(session.player, mining.snapshot,
+                            getDurationTicks(mining, currentTick), session.cause, false);
 
-                        Sponge.getEventManager().post(stopEvent);
-                    }
+                    if(!postProgress(miningEvent))
+                        continue;
 
-                    continue;
+                    stopMining(session, currentTick, MiningStopEvent.Reason.MINING_PROGRESS_EVENT_CANCELLED);
+                } else {
+                    stopMining(session, currentTick, MiningStopEvent.Reason.BUTTON_RELEASED);
                 }
             }
 
-            MiningStopEvent stopEvent = new MiningStopEvent(playerId, mining.snapshot, durationTicks,
-                    Cause.source(CustomItemLibrary.getInstance().getPluginContainer()).notifier(player).build(), MiningStopEvent.Reason.BUTTON_RELEASED);
+            int lastIndex = miningSessions.size() - 1;
+            Session last = miningSessions.remove(lastIndex);
+
+            if(index < lastIndex)
+                miningSessions.set(index, last);
+        }
+    }
+
+    private void stopMining(Session session, int currentTick, MiningStopEvent.Reason reason) {
+        Mining mining = session.mining;
+
+        // Already stopped by a listener of the previous event
+        if(mining == null)
+            return;
+
+        MiningStopEvent stopEvent = new MiningStopEvent(session.player.getUniqueId(), mining.snapshot, mining,
+                getDurationTicks(mining, currentTick), session.cause, reason);
+
+        session.mining = null;
+        postedEvents++;
+        Sponge.getEventManager().post(stopEvent);
+    }
+
+    /**
+     * @return {@code true}, if the event was cancelled
+     */
+    private boolean postProgress(MiningProgressEvent event) {
+
+        if(!directDispatch) {
+            postedEvents++;
+
+            return Sponge.getEventManager().post(event);
+        }
 
-            Sponge.getEventManager().post(stopEvent);
+        directlyDispatchedEvents++;
 
-            iterator.remove();
+        for(Consumer<MiningProgressEvent> handler : progressHandlers) {
+            handler.accept(event);
         }
+
+        return event.isCancelled();
+    }
+
+    private static int getDurationTicks(Mining mining, int currentTick) {
+        return Math.max(0, currentTick - mining.tickStarted);
     }
 
-    @AllArgsConstructor
-    @ToString
-    private static class Mining {
+    /**
+     * The state of an online player, created when they join and discarded when they disconnect.
+     */
+    private static class Session {
+        private final Player player;
+        private final Cause cause;
+        private Mining mining;
+        private int blockBreakTick = NO_TICK;
+        /*
+         Used to store the currently targeted block.
+         It becomes unavailable when the player holds the LMB and looks away from the block.
+          */
+        private BlockSnapshot currentlyTargetedBlock;
+
+        private Session(Player player) {
+            this.player = player;
+            this.cause = Cause.source(CustomItemLibrary.getInstance().getPluginContainer()).notifier(player).build();
+        }
+    }
+
+    /**
+     * The block a player is mining. Listeners of {@link MiningProgressEvent} may attach what they resolved
+     * about the block to it, so it does not need to be resolved again every tick.
+     * The attached state is only returned while the held item and mining related potion effects stay the same,
+     * and is forgotten when the mined block changes.
+     */
+    @ToString(exclude = {"customBlock", "itemInHand"})
+    public static class Mining {
+        @Getter
         private final int tickStarted;
         private int tickUpdated;
         private boolean justCreated;
+        @Getter
         private BlockSnapshot snapshot;
+        private CustomBlock<?> customBlock;
+        private ItemStack itemInHand;
+        private int hasteAmplifier;
+        private int fatigueAmplifier;
+        @Getter
+        private double requiredDuration;
+        @Getter
+        private boolean correctToolUsed;
+        private DamageIndicator damageIndicator;
+
+        private Mining(int tickStarted, int tickUpdated, boolean justCreated, BlockSnapshot snapshot) {
+            this.tickStarted = tickStarted;
+            this.tickUpdated = tickUpdated;
+            this.justCreated = justCreated;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * @return The resolved block, if it was attached with the same held item and potion effect amplifiers,
+         *         and its armor stand has neither been released nor unloaded since
+         */
+        public Optional<CustomBlock<?>> getCustomBlock(ItemStack itemInHandOrNull, int hasteAmplifier, int fatigueAmplifier) {
+            if(customBlock == null || this.hasteAmplifier != hasteAmplifier || this.fatigueAmplifier != fatigueAmplifier)
+                return Optional.empty();
+
+            if(!customBlock.isAccessible()) {
+                invalidate();
+                return Optional.empty();
+            }
+
+            if(itemInHand == null ? itemInHandOrNull != null : itemInHandOrNull == null || !itemInHand.equalTo(itemInHandOrNull))
+                return Optional.empty();
+
+            return Optional.of(customBlock);
+        }
+
+        public void attach(CustomBlock<?> customBlock, ItemStack itemInHandOrNull, int hasteAmplifier, int fatigueAmplifier,
+                           double requiredDuration, boolean correctToolUsed) {
+            this.customBlock = customBlock;
+            this.itemInHand = itemInHandOrNull;
+            this.hasteAmplifier = hasteAmplifier;
+            this.fatigueAmplifier = fatigueAmplifier;
+            this.requiredDuration = requiredDuration;
+            this.correctToolUsed = correctToolUsed;
+        }
+
+        public void invalidate() {
+            customBlock = null;
+            itemInHand = null;
+        }
+
+        /**
+         * @return The damage indicator shown for this block, unless it has been released or unloaded
+         */
+        public Optional<DamageIndicator> getDamageIndicator() {
+            return damageIndicator != null && damageIndicator.isAccessible() ? Optional.of(damageIndicator) : Optional.empty();
+        }
+
+        public void setDamageIndicator(DamageIndicator damageIndicator) {
+            this.damageIndicator = damageIndicator;
+        }
     }
 
-    public static double computeDuration(Player player, ItemStack itemInHandOrNull, boolean correctToolUsed, double hardness) {
-        Optional<ItemStack> itemInHand = Optional.ofNullable(itemInHandOrNull);
-        // java, plz.
-        final Wrapper<Double> breakDuration = Wrapper.of(hardness);
+    /**
+     * The armor stand showing the progress of mining a block and the stage it shows.
+     * It is shared by all players mining the same block.
+     */
+    @ToString(exclude = "armorStand")
+    public static class DamageIndicator {
+        @Getter
+        private final ArmorStand armorStand;
+        @Getter
+        @Setter
+        private int stage = -1;
+        @Getter
+        private boolean released;
+
+        public DamageIndicator(ArmorStand armorStand) {
+            this.armorStand = armorStand;
+        }
 
-        if(correctToolUsed) {
-            breakDuration.setValue(breakDuration.getValue() * 1.5);
+        public boolean isAccessible() {
+            return !released && !armorStand.isRemoved();
+        }
 
-            itemInHand.ifPresent(itemStack -> {
-                final Wrapper<Double> totalEfficiency = Wrapper.of(1.0);
+        /**
+         * Returns the armor stand to the {@link cz.creeper.customitemlibrary.feature.block.ArmorStandPool},
+         * players still mining the block acquire a new one.
+         */
+        public void release() {
+            if(released)
+                return;
 
-                itemStack.getProperty(EfficiencyProperty.class)
-                        .map(EfficiencyProperty::getValue)
-                        .ifPresent(efficiency ->
-                                totalEfficiency.setValue(totalEfficiency.getValue() * efficiency)
-                        );
+            released = true;
+            CustomItemLibrary.getInstance().getService().getArmorStandPool().release(armorStand);
+        }
+    }
 
-                itemStack.get(Keys.ITEM_ENCHANTMENTS)
-                        .ifPresent(itemEnchantments ->
-                                itemEnchantments.forEach(itemEnchantment -> {
-                            Enchantment type = itemEnchantment.getEnchantment();
-                            int level = itemEnchantment.getLevel();
+    /**
+     * @return The amplifier of the potion effect of the specified type, or -1, if there is no such effect
+     */
+    public static int getAmplifier(List<PotionEffect> potionEffects, PotionEffectType type) {
+        for(PotionEffect potionEffect : potionEffects) {
+            if(potionEffect.getType() == type)
+                return potionEffect.getAmplifier();
+        }
 
-                            if(type == Enchantments.EFFICIENCY) {
-                                totalEfficiency.setValue(totalEfficiency.getValue()
-                                        + level * level + 1);
-                            }
-                        }));
+        return -1;
+    }
 
-                breakDuration.setValue(breakDuration.getValue() / totalEfficiency.getValue());
-            });
-        } else {
-            breakDuration.setValue(breakDuration.getValue() * 5);
+    public double computeDuration(Player player, ItemStack itemInHandOrNull, boolean correctToolUsed, double hardness) {
+        List<PotionEffect> potionEffects = player.get(Keys.POTION_EFFECTS).orElse(Collections.emptyList());
+
+        return computeDuration(itemInHandOrNull, getAmplifier(potionEffects, PotionEffectTypes.HASTE),
+                getAmplifier(potionEffects, PotionEffectTypes.MINING_FATIGUE), correctToolUsed, hardness);
+    }
+
+    /**
+     * Computes the duration it takes to break a block, in seconds.
+     * The duration is the product of the hardness, a factor of the tool and a factor of the potion effects.
+     * Both factors are memoised, keyed by the item type and efficiency bonus,
+     * or by the haste and mining fatigue amplifiers respectively.
+     * The memoisation assumes the {@link EfficiencyProperty} of an item only depends on its {@link ItemType}.
+     * Must be called from the main thread.
+     *
+     * @param itemInHandOrNull The item used to mine the block
+     * @param hasteAmplifier The amplifier of the haste effect, or -1, see {@link #getAmplifier(List, PotionEffectType)}
+     * @param fatigueAmplifier The amplifier of the mining fatigue effect, or -1
+     * @param correctToolUsed Whether the item is the correct tool for the block
+     * @param hardness The hardness of the block
+     * @return The duration in seconds
+     */
+    public double computeDuration(ItemStack itemInHandOrNull, int hasteAmplifier, int fatigueAmplifier,
+                                         boolean correctToolUsed, double hardness) {
+        return hardness * getToolFactor(itemInHandOrNull, correctToolUsed) * getEffectFactor(hasteAmplifier, fatigueAmplifier);
+    }
+
+    private double getToolFactor(ItemStack itemInHandOrNull, boolean correctToolUsed) {
+        if(!correctToolUsed)
+            return 5;
+
+        if(itemInHandOrNull == null)
+            return 1.5;
+
+        long key = getEfficiencyBonus(itemInHandOrNull);
+        LongObjectHashMap<Double> keyToFactor = itemTypeToToolFactors.computeIfAbsent(itemInHandOrNull.getItem(),
+                k -> new LongObjectHashMap<>());
+        Double factor = keyToFactor.get(key);
+
+        if(factor == null) {
+            double totalEfficiency = itemInHandOrNull.getProperty(EfficiencyProperty.class)
+                    .map(EfficiencyProperty::getValue)
+                    .orElse(1.0);
+
+            totalEfficiency += key;
+
+            factor = 1.5 / totalEfficiency;
+
+            keyToFactor.put(key, factor);
         }
 
-        player.get(Keys.POTION_EFFECTS)
-                .ifPresent(potionEffects -> potionEffects.forEach(potionEffect -> {
-            PotionEffectType type = potionEffect.getType();
-            int amplifier = potionEffect.getAmplifier();
+        return factor;
+    }
+
+    private double getEffectFactor(int hasteAmplifier, int fatigueAmplifier) {
+        if(hasteAmplifier < 0 && fatigueAmplifier < 0)
+            return 1;
+
+        long key = ((long) hasteAmplifier << 32) | (fatigueAmplifier & 0xFFFFFFFFL);
+        Double factor = effectFactors.get(key);
 
-            if(type == PotionEffectTypes.MINING_FATIGUE) {
-                breakDuration.setValue(breakDuration.getValue()
-                        * (1 - Math.pow(0.3, amplifier)));
-            } else if(type == PotionEffectTypes.HASTE) {
-                breakDuration.setValue(breakDuration.getValue()
-                        * (1.2 * amplifier));
+        if(factor == null) {
+            double product = 1;
+
+            if(fatigueAmplifier >= 0)
+                product *= 1 - Math.pow(0.3, fatigueAmplifier);
+
+            if(hasteAmplifier >= 0)
+                product *= 1.2 * hasteAmplifier;
+
+            factor = product;
+
+            effectFactors.put(key, factor);
+        }
+
+        return factor;
+    }
+
+    /**
+     * @return The efficiency added by the enchantments of the item, {@code level * level + 1} per efficiency enchantment
+     */
+    public static int getEfficiencyBonus(ItemStack itemStack) {
+        List<ItemEnchantment> enchantments = itemStack.get(Keys.ITEM_ENCHANTMENTS).orElse(null);
+
+        if(enchantments == null)
+            return 0;
+
+        int bonus = 0;
+
+        for(ItemEnchantment enchantment : enchantments) {
+            if(enchantment.getEnchantment() == Enchantments.EFFICIENCY) {
+                int level = enchantment.getLevel();
+
+                bonus += level * level + 1;
             }
-        }));
+        }
 
-        return breakDuration.getValue();
+        return bonus;
     }
 }
@@ -3,7 +3,6 @@ package cz.creeper.customitemlibrary.util;
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.base.Preconditions;
 import lombok.AccessLevel;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -16,11 +15,11 @@ import java.util.Optional;
 import java.util.UUID;
 
 /**
- * Uniquely identifies a block across extents
+ * Uniquely identifies a block across extents.
+ * The hash and the {@link BlockKey} are cached, as blocks are used as keys frequently.
  */
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
-@EqualsAndHashCode(exclude = "world")
 public class Block {
     @NonNull
     private final UUID worldId;
@@ -28,6 +27,14 @@ public class Block {
     private final Vector3i position;
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     private Optional<World> world;
+    @Getter(AccessLevel.NONE)
+    private int worldIndex = WorldIndex.MISSING;
+    @Getter(AccessLevel.NONE)
+    private int hash;
+    @Getter(AccessLevel.NONE)
+    private Vector3i chunkPosition;
+    @Getter(AccessLevel.NONE)
+    private BlockKey key;
 
     public static Block of(UUID worldId, Vector3i position) {
         Preconditions.checkArgument(Sponge.getServer().getChunkLayout().toChunk(position).isPresent(),
@@ -42,6 +49,16 @@ public class Block {
         return block;
     }
 
+    /**
+     * Skips the bounds check, for positions known to be valid, such as those of existing entities and block snapshots.
+     */
+    public static Block ofUnchecked(World world, Vector3i position) {
+        Block block = new Block(world.getUniqueId(), position);
+        block.world = Optional.of(world);
+
+        return block;
+    }
+
     public static Block of(UUID worldId, Vector3i chunkPosition, Vector3i positionInChunk) {
         Vector3i chunkSize = Sponge.getServer().getChunkLayout().getChunkSize();
         Preconditions.checkArgument(
@@ -68,6 +85,34 @@ public class Block {
         return of(location.getExtent(), location.getBlockPosition());
     }
 
+    /**
+     * Skips the bounds check, for locations of existing entities and block snapshots.
+     */
+    public static Block ofUnchecked(Location<World> location) {
+        return ofUnchecked(location.getExtent(), location.getBlockPosition());
+    }
+
+    /**
+     * @return The dense index of the world, see {@link WorldIndex}
+     */
+    public int getWorldIndex() {
+        if(worldIndex == WorldIndex.MISSING)
+            worldIndex = WorldIndex.of(worldId);
+
+        return worldIndex;
+    }
+
+    /**
+     * @return The compact key of this block, or {@code null}, if the position is out of its range,
+     *         see {@link BlockKey#isInRange(int, int, int)}
+     */
+    public BlockKey getKey() {
+        if(key == null)
+            key = BlockKey.ofNullable(getWorldIndex(), position);
+
+        return key;
+    }
+
     public Optional<Location<World>> getLocation() {
         return getWorld().map(extent -> extent.getLocation(position));
     }
@@ -85,14 +130,47 @@ public class Block {
     }
 
     public Vector3i getChunkPosition() {
-        return Sponge.getServer().getChunkLayout().forceToChunk(position);
+        if(chunkPosition == null)
+            chunkPosition = new Vector3i(position.getX() >> BlockIndex.CHUNK_SHIFT, 0, position.getZ() >> BlockIndex.CHUNK_SHIFT);
+
+        return chunkPosition;
     }
 
     public Vector3i getPositionInChunk() {
-        return position.sub(Sponge.getServer().getChunkLayout().getChunkSize().mul(getChunkPosition()));
+        return new Vector3i(position.getX() & BlockIndex.CHUNK_MASK, position.getY(), position.getZ() & BlockIndex.CHUNK_MASK);
     }
 
     public Block add(Vector3i relative) {
         return of(worldId, position.add(relative));
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+
+        if(!(o instanceof Block))
+            return false;
+
+        Block other = (Block) o;
+
+        return hashCode() == other.hashCode() && position.equals(other.position) && worldId.equals(other.worldId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+
+        if(result == 0) {
+            result = 31 * worldId.hashCode() + position.hashCode();
+            hash = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Block(worldId=" + worldId + ", position=" + position + ")";
+    }
 }
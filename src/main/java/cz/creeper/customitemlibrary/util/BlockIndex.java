@@ -0,0 +1,403 @@
+package cz.creeper.customitemlibrary.util;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index of values attached to blocks, partitioned by world and then by chunk.
+ * Blocks are addressed by their {@link BlockKey}: worlds are stored in an array by their {@link WorldIndex},
+ * chunks are keyed by a packed {@code long} of their coordinates and blocks within a chunk by a packed in-chunk position,
+ * so neither lookups nor chunk-wide operations hash or box their keys.
+ *
+ * @param <V> The value type, {@code null} values are not permitted
+ */
+public class BlockIndex<V> {
+    public static final int CHUNK_SHIFT = 4;
+    public static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    @SuppressWarnings("unchecked")
+    private LongObjectHashMap<LongObjectHashMap<V>>[] worldIndexToChunks = new LongObjectHashMap[0];
+    private int size;
+    private int chunkCount;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of chunks containing at least one indexed block
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public V get(BlockKey key) {
+        LongObjectHashMap<V> chunk = getChunk(key.getWorldIndex(), key.getChunkKey());
+
+        return chunk != null ? chunk.get(key.getPositionKey()) : null;
+    }
+
+    /**
+     * @return The value, or {@code null}, if there is none or the block is out of the range of {@link BlockKey}
+     */
+    public V get(Block block) {
+        BlockKey key = block.getKey();
+
+        return key != null ? get(key) : null;
+    }
+
+    public V get(UUID worldId, int x, int y, int z) {
+        LongObjectHashMap<V> chunk = getChunk(WorldIndex.find(worldId), chunkKey(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT));
+
+        return chunk != null ? chunk.get(positionKey(x, y, z)) : null;
+    }
+
+    public boolean containsKey(BlockKey key) {
+        return get(key) != null;
+    }
+
+    public boolean containsKey(Block block) {
+        return get(block) != null;
+    }
+
+    public V put(BlockKey key, V value) {
+        return put(key.getWorldIndex(), key.getChunkKey(), key.getPositionKey(), value);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the block is out of the range of {@link BlockKey}
+     */
+    public V put(Block block, V value) {
+        BlockKey key = block.getKey();
+
+        Preconditions.checkArgument(key != null, "The block is out of the indexable range: %s", block);
+
+        return put(key, value);
+    }
+
+    public V put(UUID worldId, int x, int y, int z, V value) {
+        return put(BlockKey.of(worldId, x, y, z), value);
+    }
+
+    private V put(int worldIndex, long chunkKey, long positionKey, V value) {
+        if(worldIndex >= worldIndexToChunks.length)
+            worldIndexToChunks = Arrays.copyOf(worldIndexToChunks, worldIndex + 1);
+
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = worldIndexToChunks[worldIndex];
+
+        if(chunks == null) {
+            chunks = new LongObjectHashMap<>();
+            worldIndexToChunks[worldIndex] = chunks;
+        }
+
+        LongObjectHashMap<V> chunk = chunks.get(chunkKey);
+
+        if(chunk == null) {
+            chunk = new LongObjectHashMap<>();
+            chunks.put(chunkKey, chunk);
+            chunkCount++;
+        }
+
+        V previous = chunk.put(positionKey, value);
+
+        if(previous == null)
+            size++;
+
+        return previous;
+    }
+
+    public V computeIfAbsent(Block block, Function<Block, ? extends V> mappingFunction) {
+        V value = get(block);
+
+        if(value == null) {
+            value = mappingFunction.apply(block);
+
+            if(value != null)
+                put(block, value);
+        }
+
+        return value;
+    }
+
+    public V remove(BlockKey key) {
+        return remove(key.getWorldIndex(), key.getChunkKey(), key.getPositionKey());
+    }
+
+    public V remove(Block block) {
+        BlockKey key = block.getKey();
+
+        return key != null ? remove(key) : null;
+    }
+
+    public V remove(UUID worldId, int x, int y, int z) {
+        return remove(WorldIndex.find(worldId), chunkKey(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT), positionKey(x, y, z));
+    }
+
+    private V remove(int worldIndex, long chunkKey, long positionKey) {
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = getChunks(worldIndex);
+
+        if(chunks == null)
+            return null;
+
+        LongObjectHashMap<V> chunk = chunks.get(chunkKey);
+
+        if(chunk == null)
+            return null;
+
+        V previous = chunk.remove(positionKey);
+
+        if(previous != null) {
+            size--;
+
+            if(chunk.isEmpty())
+                removeChunkMap(worldIndex, chunks, chunkKey);
+        }
+
+        return previous;
+    }
+
+    /**
+     * @return Whether any block is indexed in the specified chunk
+     */
+    public boolean containsChunk(UUID worldId, int chunkX, int chunkZ) {
+        return getChunk(WorldIndex.find(worldId), chunkKey(chunkX, chunkZ)) != null;
+    }
+
+    /**
+     * Drops all blocks of a chunk in a single operation.
+     *
+     * @return The number of removed blocks
+     */
+    public int removeChunk(UUID worldId, int chunkX, int chunkZ) {
+        return removeChunk(worldId, chunkX, chunkZ, null);
+    }
+
+    /**
+     * Drops all blocks of a chunk in a single operation.
+     *
+     * @param removedValueConsumer Called for every removed value, may be {@code null}
+     * @return The number of removed blocks
+     */
+    public int removeChunk(UUID worldId, int chunkX, int chunkZ, Consumer<? super V> removedValueConsumer) {
+        int worldIndex = WorldIndex.find(worldId);
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = getChunks(worldIndex);
+
+        if(chunks == null)
+            return 0;
+
+        long chunkKey = chunkKey(chunkX, chunkZ);
+        LongObjectHashMap<V> chunk = chunks.get(chunkKey);
+
+        if(chunk == null)
+            return 0;
+
+        if(removedValueConsumer != null)
+            chunk.forEachValue(removedValueConsumer);
+
+        int removed = chunk.size();
+        size -= removed;
+
+        removeChunkMap(worldIndex, chunks, chunkKey);
+
+        return removed;
+    }
+
+    /**
+     * Drops all blocks of a world.
+     *
+     * @return The number of removed blocks
+     */
+    public int removeWorld(UUID worldId) {
+        return removeWorld(worldId, null);
+    }
+
+    /**
+     * Drops all blocks of a world.
+     *
+     * @param removedValueConsumer Called for every removed value, may be {@code null}
+     * @return The number of removed blocks
+     */
+    public int removeWorld(UUID worldId, Consumer<? super V> removedValueConsumer) {
+        int worldIndex = WorldIndex.find(worldId);
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = getChunks(worldIndex);
+
+        if(chunks == null)
+            return 0;
+
+        worldIndexToChunks[worldIndex] = null;
+
+        int[] removed = new int[1];
+
+        chunks.forEachValue(chunk -> {
+            removed[0] += chunk.size();
+
+            if(removedValueConsumer != null)
+                chunk.forEachValue(removedValueConsumer);
+        });
+        size -= removed[0];
+        chunkCount -= chunks.size();
+
+        return removed[0];
+    }
+
+    public void forEachInChunk(UUID worldId, int chunkX, int chunkZ, PositionConsumer<? super V> consumer) {
+        forEachInChunk(getChunk(WorldIndex.find(worldId), chunkKey(chunkX, chunkZ)), chunkX, chunkZ, consumer);
+    }
+
+    private static <V> void forEachInChunk(LongObjectHashMap<V> chunk, int chunkX, int chunkZ, PositionConsumer<? super V> consumer) {
+        if(chunk == null)
+            return;
+
+        int baseX = chunkX << CHUNK_SHIFT;
+        int baseZ = chunkZ << CHUNK_SHIFT;
+
+        chunk.forEach((positionKey, value) -> consumer.accept(
+                baseX + unpackX(positionKey), unpackY(positionKey), baseZ + unpackZ(positionKey), value));
+    }
+
+    /**
+     * Visits all blocks within the inclusive bounds. Only the chunks intersecting the region are visited.
+     */
+    public void forEachInRegion(UUID worldId, Vector3i min, Vector3i max, PositionConsumer<? super V> consumer) {
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = getChunks(WorldIndex.find(worldId));
+
+        if(chunks == null)
+            return;
+
+        int minX = Math.min(min.getX(), max.getX());
+        int minY = Math.min(min.getY(), max.getY());
+        int minZ = Math.min(min.getZ(), max.getZ());
+        int maxX = Math.max(min.getX(), max.getX());
+        int maxY = Math.max(min.getY(), max.getY());
+        int maxZ = Math.max(min.getZ(), max.getZ());
+        PositionConsumer<V> filter = (x, y, z, value) -> {
+            if(x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ)
+                consumer.accept(x, y, z, value);
+        };
+
+        for(int chunkX = minX >> CHUNK_SHIFT; chunkX <= maxX >> CHUNK_SHIFT; chunkX++) {
+            for(int chunkZ = minZ >> CHUNK_SHIFT; chunkZ <= maxZ >> CHUNK_SHIFT; chunkZ++) {
+                LongObjectHashMap<V> chunk = chunks.get(chunkKey(chunkX, chunkZ));
+
+                if(chunk != null)
+                    forEachInChunk(chunk, chunkX, chunkZ, filter);
+            }
+        }
+    }
+
+    public void forEachValue(Consumer<? super V> consumer) {
+        for(LongObjectHashMap<LongObjectHashMap<V>> chunks : worldIndexToChunks) {
+            if(chunks != null)
+                chunks.forEachValue(chunk -> chunk.forEachValue(consumer));
+        }
+    }
+
+    /**
+     * Removes all values matching the predicate.
+     * The predicate is evaluated exactly once for every value.
+     *
+     * @return The number of removed values
+     */
+    public int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+
+        for(int worldIndex = 0; worldIndex < worldIndexToChunks.length; worldIndex++) {
+            LongObjectHashMap<LongObjectHashMap<V>> chunks = worldIndexToChunks[worldIndex];
+
+            if(chunks == null)
+                continue;
+
+            int[] removedInWorld = new int[1];
+
+            chunks.removeIf((chunkKey, chunk) -> {
+                removedInWorld[0] += chunk.removeIf((positionKey, value) -> predicate.test(value));
+
+                if(!chunk.isEmpty())
+                    return false;
+
+                chunkCount--;
+                return true;
+            });
+
+            removed += removedInWorld[0];
+
+            if(chunks.isEmpty())
+                worldIndexToChunks[worldIndex] = null;
+        }
+
+        size -= removed;
+
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(worldIndexToChunks, null);
+        size = 0;
+        chunkCount = 0;
+    }
+
+    private LongObjectHashMap<LongObjectHashMap<V>> getChunks(int worldIndex) {
+        return worldIndex >= 0 && worldIndex < worldIndexToChunks.length ? worldIndexToChunks[worldIndex] : null;
+    }
+
+    private LongObjectHashMap<V> getChunk(int worldIndex, long chunkKey) {
+        LongObjectHashMap<LongObjectHashMap<V>> chunks = getChunks(worldIndex);
+
+        return chunks != null ? chunks.get(chunkKey) : null;
+    }
+
+    private void removeChunkMap(int worldIndex, LongObjectHashMap<LongObjectHashMap<V>> chunks, long chunkKey) {
+        chunks.remove(chunkKey);
+        chunkCount--;
+
+        if(chunks.isEmpty())
+            worldIndexToChunks[worldIndex] = null;
+        else
+            chunks.trim();
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    public static int chunkKeyX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    public static int chunkKeyZ(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    /**
+     * Packs a position within a chunk, {@code x} and {@code z} take 4 bits each, the rest is {@code y}.
+     */
+    public static long positionKey(int x, int y, int z) {
+        return ((long) y << (CHUNK_SHIFT << 1)) | ((z & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    public static int unpackX(long positionKey) {
+        return (int) positionKey & CHUNK_MASK;
+    }
+
+    public static int unpackY(long positionKey) {
+        return (int) (positionKey >> (CHUNK_SHIFT << 1));
+    }
+
+    public static int unpackZ(long positionKey) {
+        return (int) (positionKey >> CHUNK_SHIFT) & CHUNK_MASK;
+    }
+
+    @FunctionalInterface
+    public interface PositionConsumer<V> {
+        void accept(int x, int y, int z, V value);
+    }
+}
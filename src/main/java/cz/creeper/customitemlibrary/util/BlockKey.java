@@ -0,0 +1,166 @@
+package cz.creeper.customitemlibrary.util;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.base.Preconditions;
+
+import java.util.UUID;
+
+/**
+ * A compact, immutable identity of a block: the {@link WorldIndex} of its world and a position packed into a {@code long}.
+ * Horizontal coordinates take 26 bits and the vertical coordinate 12 bits, which covers the whole world border.
+ * Positions outside of that range cannot be represented, see {@link #isInRange(int, int, int)}.
+ */
+public final class BlockKey {
+    private static final int HORIZONTAL_BITS = 26;
+    private static final int VERTICAL_BITS = 12;
+    private static final int HORIZONTAL_MIN = -(1 << (HORIZONTAL_BITS - 1));
+    private static final int HORIZONTAL_MAX = (1 << (HORIZONTAL_BITS - 1)) - 1;
+    private static final int VERTICAL_MIN = -(1 << (VERTICAL_BITS - 1));
+    private static final int VERTICAL_MAX = (1 << (VERTICAL_BITS - 1)) - 1;
+    private static final long HORIZONTAL_MASK = (1L << HORIZONTAL_BITS) - 1;
+    private static final long VERTICAL_MASK = (1L << VERTICAL_BITS) - 1;
+    private static final int X_SHIFT = HORIZONTAL_BITS + VERTICAL_BITS;
+    private static final int Z_SHIFT = VERTICAL_BITS;
+    private final int worldIndex;
+    private final long packedPosition;
+    private final int hash;
+
+    private BlockKey(int worldIndex, long packedPosition) {
+        this.worldIndex = worldIndex;
+        this.packedPosition = packedPosition;
+        this.hash = 31 * worldIndex + Long.hashCode(packedPosition);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the position is out of range, see {@link #isInRange(int, int, int)}
+     */
+    public static BlockKey of(UUID worldId, int x, int y, int z) {
+        Preconditions.checkArgument(isInRange(x, y, z), "Position out of range: (%s, %s, %s)", x, y, z);
+
+        return new BlockKey(WorldIndex.of(worldId), pack(x, y, z));
+    }
+
+    public static BlockKey of(UUID worldId, Vector3i position) {
+        return of(worldId, position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * @return The key, or {@code null}, if the position is out of range
+     */
+    static BlockKey ofNullable(int worldIndex, Vector3i position) {
+        int x = position.getX();
+        int y = position.getY();
+        int z = position.getZ();
+
+        return isInRange(x, y, z) ? new BlockKey(worldIndex, pack(x, y, z)) : null;
+    }
+
+    /**
+     * @return Whether the position can be represented by a key
+     */
+    public static boolean isInRange(int x, int y, int z) {
+        return x >= HORIZONTAL_MIN && x <= HORIZONTAL_MAX
+                && z >= HORIZONTAL_MIN && z <= HORIZONTAL_MAX
+                && y >= VERTICAL_MIN && y <= VERTICAL_MAX;
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((x & HORIZONTAL_MASK) << X_SHIFT) | ((z & HORIZONTAL_MASK) << Z_SHIFT) | (y & VERTICAL_MASK);
+    }
+
+    public static int unpackX(long packedPosition) {
+        return (int) (packedPosition >> X_SHIFT);
+    }
+
+    public static int unpackY(long packedPosition) {
+        return (int) (packedPosition << (64 - VERTICAL_BITS) >> (64 - VERTICAL_BITS));
+    }
+
+    public static int unpackZ(long packedPosition) {
+        return (int) (packedPosition << (64 - X_SHIFT) >> (64 - HORIZONTAL_BITS));
+    }
+
+    public int getWorldIndex() {
+        return worldIndex;
+    }
+
+    public UUID getWorldId() {
+        return WorldIndex.getWorldId(worldIndex);
+    }
+
+    public long getPackedPosition() {
+        return packedPosition;
+    }
+
+    public int getX() {
+        return unpackX(packedPosition);
+    }
+
+    public int getY() {
+        return unpackY(packedPosition);
+    }
+
+    public int getZ() {
+        return unpackZ(packedPosition);
+    }
+
+    public int getChunkX() {
+        return getX() >> BlockIndex.CHUNK_SHIFT;
+    }
+
+    public int getChunkZ() {
+        return getZ() >> BlockIndex.CHUNK_SHIFT;
+    }
+
+    /**
+     * @return The index of the 16 blocks high chunk section
+     */
+    public int getSectionY() {
+        return getY() >> BlockIndex.CHUNK_SHIFT;
+    }
+
+    /**
+     * @return The chunk coordinates packed by {@link BlockIndex#chunkKey(int, int)}
+     */
+    public long getChunkKey() {
+        return BlockIndex.chunkKey(getChunkX(), getChunkZ());
+    }
+
+    /**
+     * @return The position within the chunk packed by {@link BlockIndex#positionKey(int, int, int)}
+     */
+    public long getPositionKey() {
+        return BlockIndex.positionKey(getX(), getY(), getZ());
+    }
+
+    public Vector3i getPosition() {
+        return new Vector3i(getX(), getY(), getZ());
+    }
+
+    public Block toBlock() {
+        return Block.of(getWorldId(), getPosition());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o)
+            return true;
+
+        if(!(o instanceof BlockKey))
+            return false;
+
+        BlockKey other = (BlockKey) o;
+
+        return worldIndex == other.worldIndex && packedPosition == other.packedPosition;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockKey(worldId=" + getWorldId() + ", x=" + getX() + ", y=" + getY() + ", z=" + getZ() + ")";
+    }
+}
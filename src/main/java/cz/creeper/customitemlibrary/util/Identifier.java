@@ -1,34 +1,62 @@
 package cz.creeper.customitemlibrary.util;
 
-import lombok.AllArgsConstructor;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 
-import java.util.Objects;
 import java.util.function.Function;
 
-@AllArgsConstructor
+/**
+ * A namespaced identifier. Identifiers created using {@link #of(String, String)} and the parse methods are interned,
+ * so equal identifiers usually share a single instance and are compared by reference first.
+ */
 @Getter
 public class Identifier {
     public static char ID_SEPARATOR = ':';
+    private static final Interner<Identifier> INTERNER = Interners.newWeakInterner();
     private final String namespace;
     private final String value;
+    @Getter(AccessLevel.NONE)
+    private final int hash;
+
+    public Identifier(@NonNull String namespace, @NonNull String value) {
+        this.namespace = namespace;
+        this.value = value;
+        this.hash = 31 * namespace.hashCode() + value.hashCode();
+    }
+
+    public static Identifier of(String namespace, String value) {
+        return intern(new Identifier(namespace, value));
+    }
+
+    /**
+     * @return The canonical instance equal to the provided identifier
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T extends Identifier> T intern(T identifier) {
+        Identifier canonical = INTERNER.intern(identifier);
+
+        return (T) canonical;
+    }
 
     public static Identifier parse(String string) {
-        return new Identifier(getNamespaceFromIdString(string), getValueFromIdString(string));
+        return of(getNamespaceFromIdString(string), getValueFromIdString(string));
     }
 
     public static Identifier parseOrGetNamespace(String string, Function<String, String> getNamespace) {
         if(string.indexOf(ID_SEPARATOR) == -1)
-            return new Identifier(getNamespace.apply(string), string);
+            return of(getNamespace.apply(string), string);
 
-        return new Identifier(getNamespaceFromIdString(string), getValueFromIdString(string));
+        return of(getNamespaceFromIdString(string), getValueFromIdString(string));
     }
 
     public static Identifier parseOrDefaultNamespace(String string, String defaultNamespace) {
         if(string.indexOf(ID_SEPARATOR) == -1)
-            return new Identifier(defaultNamespace, string);
+            return of(defaultNamespace, string);
 
-        return new Identifier(getNamespaceFromIdString(string), getValueFromIdString(string));
+        return of(getNamespaceFromIdString(string), getValueFromIdString(string));
     }
 
     @Override
@@ -38,12 +66,20 @@ public class Identifier {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hash;
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj != null && obj.getClass() == getClass() && Objects.toString(obj).equals(toString());
+        if(this == obj)
+            return true;
+
+        if(obj == null || obj.getClass() != getClass())
+            return false;
+
+        Identifier other = (Identifier) obj;
+
+        return hash == other.hash && namespace.equals(other.namespace) && value.equals(other.value);
     }
 
     public static boolean isParseable(String id) {
@@ -0,0 +1,247 @@
+package cz.creeper.customitemlibrary.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open-addressing hash map with primitive {@code long} keys.
+ * Avoids boxing the keys and allocating an entry object for every mapping.
+ * {@code null} values are not permitted, as they mark free slots.
+ *
+ * @param <V> The value type
+ */
+public class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value, "value");
+
+        int slot = slot(key);
+
+        while(values[slot] != null) {
+            if(keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+
+                return previous;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if(++size > resizeThreshold)
+            rehash(keys.length << 1);
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+
+        if(index < 0)
+            return null;
+
+        V previous = (V) values[index];
+
+        removeAt(index);
+
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Shrinks the backing arrays if they are much larger than needed,
+     * so that maps which temporarily held many entries release their memory.
+     * Only shrinks once at most an eighth of the capacity is used, so a size oscillating around a resize
+     * threshold does not rehash the map on every call.
+     */
+    public void trim() {
+        if(size > keys.length >> 3)
+            return;
+
+        int desired = tableSizeFor((int) Math.ceil(Math.max(size, DEFAULT_CAPACITY) / LOAD_FACTOR));
+
+        if(desired < keys.length)
+            rehash(desired);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for(int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+
+            if(value != null)
+                consumer.accept(keys[slot], (V) value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> consumer) {
+        for(Object value : values) {
+            if(value != null)
+                consumer.accept((V) value);
+        }
+    }
+
+    /**
+     * Removes all entries matching the predicate.
+     * The predicate is evaluated exactly once for every entry.
+     *
+     * @return The number of removed entries
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(EntryPredicate<? super V> predicate) {
+        long[] removedKeys = null;
+        int removed = 0;
+
+        // Backward shift deletion moves entries around, so the matching keys are collected first
+        for(int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+
+            if(value != null && predicate.test(keys[slot], (V) value)) {
+                if(removedKeys == null)
+                    removedKeys = new long[Math.min(size, DEFAULT_CAPACITY)];
+                else if(removed == removedKeys.length)
+                    removedKeys = Arrays.copyOf(removedKeys, removed << 1);
+
+                removedKeys[removed++] = keys[slot];
+            }
+        }
+
+        for(int i = 0; i < removed; i++)
+            removeAt(indexOf(removedKeys[i]));
+
+        return removed;
+    }
+
+    private int indexOf(long key) {
+        int slot = slot(key);
+
+        while(values[slot] != null) {
+            if(keys[slot] == key)
+                return slot;
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        // Backward shift deletion, keeps probe sequences intact without tombstones
+        int gap = index;
+        int slot = (index + 1) & mask;
+
+        while(values[slot] != null) {
+            int ideal = slot(keys[slot]);
+
+            if(((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        values[gap] = null;
+        size--;
+    }
+
+    private int slot(long key) {
+        return mix(key) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        for(int slot = 0; slot < oldValues.length; slot++) {
+            Object value = oldValues[slot];
+
+            if(value == null)
+                continue;
+
+            int newSlot = slot(oldKeys[slot]);
+
+            while(values[newSlot] != null)
+                newSlot = (newSlot + 1) & mask;
+
+            keys[newSlot] = oldKeys[slot];
+            values[newSlot] = value;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1);
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    @FunctionalInterface
+    public interface EntryPredicate<V> {
+        boolean test(long key, V value);
+    }
+}
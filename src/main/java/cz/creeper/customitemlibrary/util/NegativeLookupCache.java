@@ -0,0 +1,146 @@
+package cz.creeper.customitemlibrary.util;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * A bounded set of blocks known not to contain what was looked up.
+ * When full, entries are evicted using the clock (second chance) algorithm,
+ * recently hit entries survive one more sweep of the clock hand.
+ */
+@ToString(of = {"capacity", "hits", "misses", "evictions"})
+public class NegativeLookupCache {
+    private final BlockIndex<Entry> index = new BlockIndex<>();
+    @Getter
+    private final int capacity;
+    private final Entry[] ring;
+    private int hand;
+    @Getter
+    private long hits;
+    @Getter
+    private long misses;
+    @Getter
+    private long evictions;
+
+    public NegativeLookupCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "The capacity must be positive.");
+
+        this.capacity = capacity;
+        this.ring = new Entry[capacity];
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return Whether the block is known not to contain what was looked up, records a hit or a miss
+     */
+    public boolean contains(Block block) {
+        BlockKey key = block.getKey();
+        Entry entry = key != null ? index.get(key) : null;
+
+        if(entry == null) {
+            misses++;
+            return false;
+        }
+
+        entry.referenced = true;
+        hits++;
+
+        return true;
+    }
+
+    /**
+     * Blocks out of the range of {@link BlockKey} are not cached.
+     */
+    public void add(Block block) {
+        BlockKey key = block.getKey();
+
+        if(key == null || index.containsKey(key))
+            return;
+
+        Entry entry = nextFreeEntry();
+
+        entry.key = key;
+        entry.referenced = false;
+        entry.occupied = true;
+
+        index.put(key, entry);
+    }
+
+    public void invalidate(Block block) {
+        BlockKey key = block.getKey();
+        Entry entry = key != null ? index.remove(key) : null;
+
+        if(entry != null)
+            entry.occupied = false;
+    }
+
+    public void invalidateChunk(UUID worldId, int chunkX, int chunkZ) {
+        index.removeChunk(worldId, chunkX, chunkZ, entry -> entry.occupied = false);
+    }
+
+    public void invalidateWorld(UUID worldId) {
+        index.removeWorld(worldId, entry -> entry.occupied = false);
+    }
+
+    public void clear() {
+        index.clear();
+
+        for(Entry entry : ring) {
+            if(entry != null)
+                entry.occupied = false;
+        }
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+
+        return lookups > 0 ? (double) hits / lookups : 0;
+    }
+
+    private Entry nextFreeEntry() {
+        while(true) {
+            Entry entry = ring[hand];
+
+            if(entry == null) {
+                entry = ring[hand] = new Entry();
+                advanceHand();
+                return entry;
+            }
+
+            if(!entry.occupied) {
+                advanceHand();
+                return entry;
+            }
+
+            if(entry.referenced) {
+                entry.referenced = false;
+                advanceHand();
+                continue;
+            }
+
+            index.remove(entry.key);
+            entry.occupied = false;
+            evictions++;
+            advanceHand();
+
+            return entry;
+        }
+    }
+
+    private void advanceHand() {
+        if(++hand >= ring.length)
+            hand = 0;
+    }
+
+    private static class Entry {
+        private BlockKey key;
+        private boolean referenced;
+        private boolean occupied;
+    }
+}
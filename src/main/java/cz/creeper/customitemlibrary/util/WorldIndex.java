@@ -0,0 +1,63 @@
+package cz.creeper.customitemlibrary.util;
+
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Assigns dense indices to worlds, so per-world data can be stored in arrays.
+ * Indices are never reused during a server run. Registration is synchronized and copies the tables,
+ * lookups read the published tables without locking.
+ */
+public final class WorldIndex {
+    public static final int MISSING = -1;
+    private static volatile Map<UUID, Integer> worldIdToIndex = Collections.emptyMap();
+    private static volatile UUID[] worldIds = new UUID[0];
+
+    private WorldIndex() {}
+
+    /**
+     * @return The index of the world, assigned on the first call
+     */
+    public static int of(UUID worldId) {
+        Integer index = worldIdToIndex.get(worldId);
+
+        return index != null ? index : register(worldId);
+    }
+
+    /**
+     * @return The index of the world, or {@link #MISSING}, if none has been assigned yet
+     */
+    public static int find(UUID worldId) {
+        Integer index = worldIdToIndex.get(worldId);
+
+        return index != null ? index : MISSING;
+    }
+
+    public static UUID getWorldId(int index) {
+        return worldIds[index];
+    }
+
+    private static synchronized int register(UUID worldId) {
+        Integer index = worldIdToIndex.get(worldId);
+
+        if(index != null)
+            return index;
+
+        UUID[] newWorldIds = Arrays.copyOf(worldIds, worldIds.length + 1);
+        Map<UUID, Integer> newWorldIdToIndex = Maps.newHashMap(worldIdToIndex);
+        int newIndex = worldIds.length;
+
+        newWorldIds[newIndex] = worldId;
+        newWorldIdToIndex.put(worldId, newIndex);
+
+        // The id must be resolvable before the index is handed out
+        worldIds = newWorldIds;
+        worldIdToIndex = newWorldIdToIndex;
+
+        return newIndex;
+    }
+}